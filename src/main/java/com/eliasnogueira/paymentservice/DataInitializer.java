@@ -3,6 +3,7 @@ package com.eliasnogueira.paymentservice;
 import com.eliasnogueira.paymentservice.model.Payment;
 import com.eliasnogueira.paymentservice.model.enums.PaymentSource;
 import com.eliasnogueira.paymentservice.repository.PaymentRepository;
+import com.eliasnogueira.paymentservice.service.PaymentShards;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
@@ -15,14 +16,18 @@ import static com.eliasnogueira.paymentservice.model.enums.PaymentStatus.PENDING
 public class DataInitializer implements CommandLineRunner {
 
     private final PaymentRepository paymentRepository;
+    private final PaymentShards paymentShards;
 
-    public DataInitializer(PaymentRepository paymentRepository) {
+    public DataInitializer(PaymentRepository paymentRepository, PaymentShards paymentShards) {
         this.paymentRepository = paymentRepository;
+        this.paymentShards = paymentShards;
     }
 
     @Override
     public void run(String... args) {
-        paymentRepository.save(Payment.builder().payerId(UUID.randomUUID()).paymentSource(PaymentSource.PIX)
-                .amount(BigDecimal.valueOf(100.50)).status(PENDING).build());
+        UUID payerId = UUID.randomUUID();
+        paymentShards.onShard(paymentShards.shardOf(payerId), () -> paymentRepository.save(Payment.builder()
+                .payerId(payerId).paymentSource(PaymentSource.PIX)
+                .amount(BigDecimal.valueOf(100.50)).status(PENDING).build()));
     }
 }
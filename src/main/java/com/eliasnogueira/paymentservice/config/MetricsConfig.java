@@ -0,0 +1,58 @@
+package com.eliasnogueira.paymentservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times JSON serialization of response bodies, which {@code http.server.requests} only reports as part of the
+ * whole request.
+ */
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+
+    private final Timer jsonWrite;
+
+    public MetricsConfig(MeterRegistry meterRegistry) {
+        this.jsonWrite = Timer.builder("payment.json.write")
+                .description("Time spent serializing response bodies to JSON")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.replaceAll(converter -> converter instanceof MappingJackson2HttpMessageConverter jackson
+                ? new TimedJacksonConverter(jackson.getObjectMapper(), jsonWrite)
+                : converter);
+    }
+
+    private static final class TimedJacksonConverter extends MappingJackson2HttpMessageConverter {
+
+        private final Timer timer;
+
+        private TimedJacksonConverter(ObjectMapper objectMapper, Timer timer) {
+            super(objectMapper);
+            this.timer = timer;
+        }
+
+        @Override
+        protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+            long start = System.nanoTime();
+            try {
+                super.writeInternal(object, type, outputMessage);
+            } finally {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
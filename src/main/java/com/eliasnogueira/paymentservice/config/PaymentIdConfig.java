@@ -0,0 +1,24 @@
+package com.eliasnogueira.paymentservice.config;
+
+import com.eliasnogueira.paymentservice.model.id.PaymentIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Hands the {@code payment.id} settings to {@link PaymentIdGenerator}, which Hibernate creates outside the Spring
+ * context.
+ */
+@Configuration
+public class PaymentIdConfig {
+
+    @Bean
+    HibernatePropertiesCustomizer paymentIdSettings(@Value("${payment.id.strategy:sequence}") String strategy,
+                                                    @Value("${payment.id.node-id:0}") long nodeId) {
+        return properties -> {
+            properties.put(PaymentIdGenerator.STRATEGY_SETTING, strategy);
+            properties.put(PaymentIdGenerator.NODE_ID_SETTING, nodeId);
+        };
+    }
+}
@@ -0,0 +1,92 @@
+package com.eliasnogueira.paymentservice.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Hands out connections of the shard bound to the current transaction, or else of the shard selected with
+ * {@link #onShard}, defaulting to shard 0. It sits behind a {@code LazyConnectionDataSourceProxy}, so a transaction
+ * can bind its shard after it began, as long as it has not run a statement yet.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private static final ThreadLocal<Integer> CURRENT_SHARD = new ThreadLocal<>();
+    private static final Object TRANSACTION_SHARD = new Object();
+
+    private final List<DataSource> shards;
+
+    public ShardRoutingDataSource(List<DataSource> shards) {
+        this.shards = List.copyOf(shards);
+        Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            targets.put(shard, shards.get(shard));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.getFirst());
+        afterPropertiesSet();
+    }
+
+    /**
+     * Runs the action against the shard. Only transactions started inside the action are affected.
+     */
+    public static <T> T onShard(int shard, Supplier<T> action) {
+        Integer previous = CURRENT_SHARD.get();
+        CURRENT_SHARD.set(shard);
+        try {
+            return action.get();
+        } finally {
+            CURRENT_SHARD.set(previous);
+        }
+    }
+
+    /**
+     * Binds the current transaction to the shard until it completes.
+     */
+    public static void bindToTransaction(int shard) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("No transaction to bind shard " + shard + " to");
+        }
+
+        Object bound = TransactionSynchronizationManager.getResource(TRANSACTION_SHARD);
+        if (bound != null) {
+            if (!bound.equals(shard)) {
+                throw new IllegalStateException("Transaction is bound to shard " + bound + ", not " + shard);
+            }
+            return;
+        }
+
+        TransactionSynchronizationManager.bindResource(TRANSACTION_SHARD, shard);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(TRANSACTION_SHARD);
+            }
+        });
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Object bound = TransactionSynchronizationManager.getResource(TRANSACTION_SHARD);
+        if (bound != null) {
+            return bound;
+        }
+        Integer current = CURRENT_SHARD.get();
+        return current == null ? 0 : current;
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource shard : shards) {
+            if (shard instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
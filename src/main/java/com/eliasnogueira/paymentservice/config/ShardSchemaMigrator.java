@@ -0,0 +1,90 @@
+package com.eliasnogueira.paymentservice.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.spi.DelayedDropAction;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs the schema action Hibernate ran on shard 0 while starting, {@code spring.jpa.hibernate.ddl-auto}, on every other
+ * shard, so an entity change migrates all of them alike. A drop registered by {@code create-drop} runs on its shard
+ * when the session factory closes.
+ */
+@Slf4j
+class ShardSchemaMigrator implements HibernatePropertiesCustomizer, Integrator, SmartInitializingSingleton {
+
+    private final int shardCount;
+    private final DataSource dataSource;
+    private final Map<Integer, DelayedDropAction> drops = new ConcurrentHashMap<>();
+    private Metadata metadata;
+    private SessionFactoryImplementor sessionFactory;
+
+    ShardSchemaMigrator(int shardCount, DataSource dataSource) {
+        this.shardCount = shardCount;
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER,
+                (IntegratorProvider) () -> List.of(this));
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+                          SessionFactoryImplementor sessionFactory) {
+        this.metadata = metadata;
+        this.sessionFactory = sessionFactory;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (int shard = 1; shard < shardCount; shard++) {
+            int current = shard;
+            ShardRoutingDataSource.onShard(shard, () -> {
+                migrate(current);
+                return null;
+            });
+        }
+        log.info("Schema migrated on {} shards", shardCount);
+    }
+
+    // the session factory's JDBC environment describes shard 0, whose catalog the migration would search for the
+    // tables of this shard, so it runs with services bootstrapped from this shard's own connection
+    private void migrate(int shard) {
+        Map<String, Object> settings = new HashMap<>(sessionFactory.getProperties());
+        settings.put(AvailableSettings.DATASOURCE, dataSource);
+        StandardServiceRegistry serviceRegistry = new StandardServiceRegistryBuilder().applySettings(settings).build();
+        try {
+            SchemaManagementToolCoordinator.process(metadata, serviceRegistry, settings,
+                    action -> drops.put(shard, action));
+        } finally {
+            StandardServiceRegistryBuilder.destroy(serviceRegistry);
+        }
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        drops.forEach((shard, drop) -> ShardRoutingDataSource.onShard(shard, () -> {
+            drop.perform(serviceRegistry);
+            return null;
+        }));
+    }
+}
@@ -0,0 +1,92 @@
+package com.eliasnogueira.paymentservice.config;
+
+import com.eliasnogueira.paymentservice.model.id.PaymentIdGenerator;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Spreads payments over the databases listed in {@code payment.sharding.shards} by a hash of the payer id. Each shard
+ * gets its own pool with the {@code spring.datasource.hikari} settings, and the {@link ShardSchemaMigrator} applies the
+ * schema action Hibernate runs on shard 0 to the others on startup. A shard with a {@code replica-url} routes its read-only transactions to the
+ * replica like {@link ReadReplicaConfig} does for the single datasource, which it replaces.
+ */
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    static final String SHARDING_ENABLED = "payment.sharding.shards[0].url";
+
+    @Bean
+    @ConditionalOnProperty(SHARDING_ENABLED)
+    ShardRoutingDataSource shardRoutingDataSource(ShardingProperties sharding, DataSourceProperties properties,
+                                                  Environment environment) {
+        if (environment.containsProperty(ReadReplicaConfig.REPLICA_URL)) {
+            throw new IllegalStateException(ReadReplicaConfig.REPLICA_URL + " replicates the single datasource, "
+                    + "set payment.sharding.shards[n].replica-url for the replica of each shard instead");
+        }
+
+        List<DataSource> shards = new ArrayList<>();
+        for (ShardingProperties.Shard shard : sharding.shards()) {
+            String name = "shard-" + shards.size();
+            HikariDataSource primary = pool(shard.url(), name, sharding, properties, environment);
+            if (shard.replicaUrl() == null) {
+                shards.add(primary);
+            } else {
+                HikariDataSource replica = pool(shard.replicaUrl(), name + "-replica", sharding, properties,
+                        environment);
+                replica.setReadOnly(true);
+                shards.add(new ReadWriteRoutingDataSource(primary, replica));
+            }
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(SHARDING_ENABLED)
+    DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    @Bean
+    @ConditionalOnProperty(SHARDING_ENABLED)
+    HibernatePropertiesCustomizer shardedPaymentIds(ShardingProperties sharding) {
+        return properties -> properties.put(PaymentIdGenerator.SHARD_COUNT_SETTING, sharding.shardCount());
+    }
+
+    @Bean
+    @ConditionalOnProperty(SHARDING_ENABLED)
+    ShardSchemaMigrator shardSchemaMigrator(ShardingProperties sharding,
+                                            ShardRoutingDataSource shardRoutingDataSource) {
+        return new ShardSchemaMigrator(sharding.shardCount(), shardRoutingDataSource);
+    }
+
+    private static HikariDataSource pool(String url, String name, ShardingProperties sharding,
+                                         DataSourceProperties properties, Environment environment) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(url)
+                .username(sharding.username())
+                .password(sharding.password())
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        dataSource.setPoolName(name);
+        return dataSource;
+    }
+}
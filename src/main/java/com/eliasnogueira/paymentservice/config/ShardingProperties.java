@@ -0,0 +1,24 @@
+package com.eliasnogueira.paymentservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.List;
+
+/**
+ * Shard databases under {@code payment.sharding}. An empty list keeps the single {@code spring.datasource}. A shard with
+ * a {@code replica-url} serves its read-only transactions from that replica.
+ */
+@ConfigurationProperties("payment.sharding")
+public record ShardingProperties(List<Shard> shards, String username, String password) {
+
+    public ShardingProperties {
+        shards = shards == null ? List.of() : List.copyOf(shards);
+    }
+
+    public int shardCount() {
+        return Math.max(1, shards.size());
+    }
+
+    public record Shard(String url, String replicaUrl) {
+    }
+}
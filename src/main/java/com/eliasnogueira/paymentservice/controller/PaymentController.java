@@ -1,22 +1,42 @@
 package com.eliasnogueira.paymentservice.controller;
 
+import com.eliasnogueira.paymentservice.dto.ExportFormat;
+import com.eliasnogueira.paymentservice.dto.PayerSummaryResponse;
+import com.eliasnogueira.paymentservice.dto.PaymentBatchRequest;
+import com.eliasnogueira.paymentservice.dto.PaymentBatchResponse;
+import com.eliasnogueira.paymentservice.dto.PaymentExportFilter;
+import com.eliasnogueira.paymentservice.dto.PaymentPage;
 import com.eliasnogueira.paymentservice.dto.PaymentRequest;
 import com.eliasnogueira.paymentservice.dto.PaymentResponse;
 import com.eliasnogueira.paymentservice.dto.PaymentUpdateRequest;
+import com.eliasnogueira.paymentservice.model.enums.PaymentSource;
+import com.eliasnogueira.paymentservice.model.enums.PaymentStatus;
+import com.eliasnogueira.paymentservice.service.IdempotencyService;
+import com.eliasnogueira.paymentservice.service.PaymentExportService;
+import com.eliasnogueira.paymentservice.service.PaymentRateLimiter;
 import com.eliasnogueira.paymentservice.service.PaymentService;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -25,30 +45,94 @@ import java.util.UUID;
 public class PaymentController {
 
     private final PaymentService paymentService;
+    private final PaymentExportService paymentExportService;
+    private final IdempotencyService idempotencyService;
+    private final PaymentRateLimiter paymentRateLimiter;
 
-    public PaymentController(@Autowired PaymentService paymentService) {
+    public PaymentController(@Autowired PaymentService paymentService,
+                             @Autowired PaymentExportService paymentExportService,
+                             @Autowired IdempotencyService idempotencyService,
+                             @Autowired PaymentRateLimiter paymentRateLimiter) {
         this.paymentService = paymentService;
+        this.paymentExportService = paymentExportService;
+        this.idempotencyService = idempotencyService;
+        this.paymentRateLimiter = paymentRateLimiter;
     }
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    public PaymentResponse createPayment(@Valid @RequestBody PaymentRequest paymentRequest) {
-        return paymentService.createPayment(paymentRequest);
+    public PaymentResponse createPayment(
+            @RequestHeader(name = "Idempotency-Key", required = false) @Size(min = 1, max = 255) String idempotencyKey,
+            @Valid @RequestBody PaymentRequest paymentRequest) {
+        if (idempotencyKey == null) {
+            paymentRateLimiter.acquire(paymentRequest.getPayerId());
+            return paymentService.createPayment(paymentRequest);
+        }
+        return idempotencyService.createPayment(idempotencyKey, paymentRequest);
     }
 
+    @PostMapping("/batch")
+    public PaymentBatchResponse createPayments(@Valid @RequestBody PaymentBatchRequest batchRequest) {
+        paymentRateLimiter.acquire(batchRequest.getPayments().stream().map(PaymentRequest::getPayerId).toList());
+        return paymentService.createPayments(batchRequest.getPayments());
+    }
+
+    /**
+     * A client revalidating with If-None-Match gets 304 from the payment's version alone, before it is loaded.
+     */
     @GetMapping("/{paymentId}")
-    public PaymentResponse getPayment(@PathVariable Long paymentId) {
-        return paymentService.getPaymentById(paymentId);
+    public ResponseEntity<PaymentResponse> getPayment(@PathVariable Long paymentId, WebRequest webRequest) {
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && webRequest.checkNotModified(eTag(paymentService.getPaymentVersion(paymentId)))) {
+            return null;
+        }
+
+        var payment = paymentService.getPaymentById(paymentId);
+        return ResponseEntity.ok().eTag(eTag(payment.getVersion())).body(payment);
     }
 
     @GetMapping
-    public List<PaymentResponse> getAllPayments() {
-        return paymentService.getAllPayments();
+    public PaymentPage getAllPayments(@RequestParam(required = false) String cursor,
+                                      @RequestParam(defaultValue = "50") int limit) {
+        return paymentService.getAllPayments(cursor, limit);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportPayments(
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) PaymentStatus status,
+            @RequestParam(required = false) PaymentSource paymentSource) {
+        var filter = PaymentExportFilter.builder()
+                .from(from)
+                .to(to)
+                .status(status)
+                .paymentSource(paymentSource)
+                .build();
+
+        StreamingResponseBody body = outputStream -> paymentExportService.export(filter, format, outputStream);
+        return ResponseEntity.ok().contentType(format.getMediaType()).body(body);
     }
 
+    /**
+     * Revalidation checks the payer's revision before loading the list; a plain GET takes the ETag from the list.
+     */
     @GetMapping("/payer/{payerId}")
-    public List<PaymentResponse> getPaymentsByPayer(@PathVariable UUID payerId) {
-        return paymentService.getPaymentsByPayerId(payerId);
+    public ResponseEntity<List<PaymentResponse>> getPaymentsByPayer(@PathVariable UUID payerId,
+                                                                    WebRequest webRequest) {
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && webRequest.checkNotModified(eTag(paymentService.getPayerRevision(payerId)))) {
+            return null;
+        }
+
+        var payerPayments = paymentService.getPayerPayments(payerId);
+        return ResponseEntity.ok().eTag(eTag(payerPayments.revision())).body(payerPayments.payments());
+    }
+
+    @GetMapping("/payer/{payerId}/summary")
+    public PayerSummaryResponse getPayerSummary(@PathVariable UUID payerId) {
+        return paymentService.getPayerSummary(payerId);
     }
 
     @PutMapping("/{paymentId}")
@@ -57,4 +141,8 @@ public class PaymentController {
             @Valid @RequestBody PaymentUpdateRequest updateRequest) {
         return paymentService.updatePayment(paymentId, updateRequest);
     }
+
+    private static String eTag(Object revision) {
+        return "\"" + revision + "\"";
+    }
 }
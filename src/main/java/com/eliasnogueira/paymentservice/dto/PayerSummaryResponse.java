@@ -0,0 +1,23 @@
+package com.eliasnogueira.paymentservice.dto;
+
+import com.eliasnogueira.paymentservice.model.enums.PaymentSource;
+import com.eliasnogueira.paymentservice.model.enums.PaymentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PayerSummaryResponse {
+
+    private UUID payerId;
+    private PaymentTotals overall;
+    private Map<PaymentSource, PaymentTotals> bySource;
+    private Map<PaymentStatus, PaymentTotals> byStatus;
+}
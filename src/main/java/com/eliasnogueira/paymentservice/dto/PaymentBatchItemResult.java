@@ -0,0 +1,22 @@
+package com.eliasnogueira.paymentservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentBatchItemResult {
+
+    public enum Status {
+        CREATED, REJECTED
+    }
+
+    private int index;
+    private Status status;
+    private PaymentResponse payment;
+    private String error;
+}
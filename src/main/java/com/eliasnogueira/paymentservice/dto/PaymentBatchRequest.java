@@ -0,0 +1,22 @@
+package com.eliasnogueira.paymentservice.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentBatchRequest {
+
+    @NotEmpty(message = "Payments are required")
+    @Size(max = 1000, message = "A batch accepts at most 1000 payments")
+    private List<@Valid PaymentRequest> payments;
+}
@@ -0,0 +1,19 @@
+package com.eliasnogueira.paymentservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentBatchResponse {
+
+    private int created;
+    private int rejected;
+    private List<PaymentBatchItemResult> results;
+}
@@ -0,0 +1,34 @@
+package com.eliasnogueira.paymentservice.dto;
+
+import com.eliasnogueira.paymentservice.model.enums.PaymentEventType;
+import com.eliasnogueira.paymentservice.model.enums.PaymentSource;
+import com.eliasnogueira.paymentservice.model.enums.PaymentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Payment change as published to downstream systems. Delivery is at least once, so consumers deduplicate on
+ * {@code eventId}, or on {@code paymentId} and {@code version}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentEvent {
+
+    private Long eventId;
+    private PaymentEventType type;
+    private Long paymentId;
+    private UUID payerId;
+    private PaymentSource paymentSource;
+    private BigDecimal amount;
+    private PaymentStatus status;
+    private Long version;
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,18 @@
+package com.eliasnogueira.paymentservice.dto;
+
+import com.eliasnogueira.paymentservice.model.enums.PaymentSource;
+import com.eliasnogueira.paymentservice.model.enums.PaymentStatus;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Builder
+@Data
+public class PaymentExportFilter {
+
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private PaymentStatus status;
+    private PaymentSource paymentSource;
+}
@@ -0,0 +1,30 @@
+package com.eliasnogueira.paymentservice.dto;
+
+import com.eliasnogueira.paymentservice.model.enums.PaymentSource;
+import com.eliasnogueira.paymentservice.model.enums.PaymentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Payment as exported, with the creation time the export is filtered on.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentExportRow {
+
+    private Long id;
+    private UUID payerId;
+    private PaymentSource paymentSource;
+    private BigDecimal amount;
+    private PaymentStatus status;
+    private LocalDateTime createdAt;
+    private Long version;
+}
@@ -0,0 +1,18 @@
+package com.eliasnogueira.paymentservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentPage {
+
+    private List<PaymentResponse> items;
+    private String nextCursor;
+}
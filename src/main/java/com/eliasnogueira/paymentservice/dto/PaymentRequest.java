@@ -1,6 +1,7 @@
 package com.eliasnogueira.paymentservice.dto;
 
 import com.eliasnogueira.paymentservice.model.enums.PaymentSource;
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import lombok.Builder;
@@ -21,6 +22,7 @@ public class PaymentRequest {
 
     @NotNull(message = "Amount is required")
     @Positive(message = "Amount must be positive")
+    @Digits(integer = 15, fraction = 2, message = "Amount must have at most 15 integer digits and 2 decimal places")
     private BigDecimal amount;
 
     public PaymentRequest(UUID payerId, PaymentSource paymentSource, BigDecimal amount) {
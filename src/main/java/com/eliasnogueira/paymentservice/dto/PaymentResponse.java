@@ -21,4 +21,5 @@ public class PaymentResponse {
     private PaymentSource paymentSource;
     private BigDecimal amount;
     private PaymentStatus status;
+    private Long version;
 }
@@ -0,0 +1,18 @@
+package com.eliasnogueira.paymentservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentTotals {
+
+    private long count;
+    private BigDecimal total;
+}
@@ -11,4 +11,6 @@ public class PaymentUpdateRequest {
 
     @NotNull(message = "Status is required")
     private PaymentStatus status;
+
+    private Long version;
 }
@@ -0,0 +1,8 @@
+package com.eliasnogueira.paymentservice.exceptions;
+
+public class BatchTooLargeException extends RuntimeException {
+
+    public BatchTooLargeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.eliasnogueira.paymentservice.exceptions;
+
+public class IdempotencyKeyMismatchException extends RuntimeException {
+
+    public IdempotencyKeyMismatchException(String message) {
+        super(message);
+    }
+}
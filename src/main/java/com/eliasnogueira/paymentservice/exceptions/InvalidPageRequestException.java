@@ -0,0 +1,8 @@
+package com.eliasnogueira.paymentservice.exceptions;
+
+public class InvalidPageRequestException extends RuntimeException {
+
+    public InvalidPageRequestException(String message) {
+        super(message);
+    }
+}
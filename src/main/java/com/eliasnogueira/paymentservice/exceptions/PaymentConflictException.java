@@ -0,0 +1,8 @@
+package com.eliasnogueira.paymentservice.exceptions;
+
+public class PaymentConflictException extends RuntimeException {
+
+    public PaymentConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,47 @@
+package com.eliasnogueira.paymentservice.mapper;
+
+import com.eliasnogueira.paymentservice.dto.PaymentEvent;
+import com.eliasnogueira.paymentservice.dto.PaymentExportRow;
+import com.eliasnogueira.paymentservice.dto.PaymentResponse;
+import com.eliasnogueira.paymentservice.model.OutboxEvent;
+import com.eliasnogueira.paymentservice.model.Payment;
+import com.eliasnogueira.paymentservice.model.enums.PaymentEventType;
+import com.eliasnogueira.paymentservice.repository.PaymentRow;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PaymentMapper {
+
+    public PaymentResponse toResponse(Payment payment) {
+        return new PaymentResponse(payment.getId(), payment.getPayerId(), payment.getPaymentSource(),
+                payment.getAmount(), payment.getStatus(), payment.getVersion());
+    }
+
+    public PaymentResponse toResponse(PaymentRow row) {
+        return new PaymentResponse(row.getId(), row.getPayerId(), row.getPaymentSource(), row.getAmount(),
+                row.getStatus(), row.getVersion());
+    }
+
+    public PaymentExportRow toExportRow(Payment payment) {
+        return new PaymentExportRow(payment.getId(), payment.getPayerId(), payment.getPaymentSource(),
+                payment.getAmount(), payment.getStatus(), payment.getCreatedAt(), payment.getVersion());
+    }
+
+    public OutboxEvent toCreatedEvent(Payment payment) {
+        return OutboxEvent.builder().type(PaymentEventType.CREATED).paymentId(payment.getId())
+                .payerId(payment.getPayerId()).paymentSource(payment.getPaymentSource()).amount(payment.getAmount())
+                .status(payment.getStatus()).version(payment.getVersion()).build();
+    }
+
+    public OutboxEvent toStatusChangedEvent(PaymentRow row) {
+        return OutboxEvent.builder().type(PaymentEventType.STATUS_CHANGED).paymentId(row.getId())
+                .payerId(row.getPayerId()).paymentSource(row.getPaymentSource()).amount(row.getAmount())
+                .status(row.getStatus()).version(row.getVersion()).build();
+    }
+
+    public PaymentEvent toEvent(OutboxEvent event) {
+        return new PaymentEvent(event.getId(), event.getType(), event.getPaymentId(), event.getPayerId(),
+                event.getPaymentSource(), event.getAmount(), event.getStatus(), event.getVersion(),
+                event.getOccurredAt());
+    }
+}
@@ -0,0 +1,26 @@
+package com.eliasnogueira.paymentservice.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Amounts as a {@code long} count of cents, for arithmetic on the hot path without {@link BigDecimal} allocations.
+ * The API keeps {@link BigDecimal}; conversions are exact and fail instead of rounding or overflowing.
+ */
+public final class MinorUnits {
+
+    public static final int SCALE = 2;
+
+    private MinorUnits() {
+    }
+
+    /**
+     * @throws ArithmeticException if the amount has more than two decimal places or does not fit in a {@code long}
+     */
+    public static long of(BigDecimal amount) {
+        return amount.movePointRight(SCALE).longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+}
@@ -0,0 +1,5 @@
+package com.eliasnogueira.paymentservice.model.enums;
+
+public enum PaymentEventType {
+    CREATED, STATUS_CHANGED
+}
@@ -0,0 +1,21 @@
+package com.eliasnogueira.paymentservice.model.id;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates the payment id with {@link PaymentIdGenerator}, falling back to the pooled {@link #sequenceName()}.
+ */
+@IdGeneratorType(PaymentIdGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface PaymentId {
+
+    String sequenceName() default "payments_seq";
+
+    int allocationSize() default 50;
+}
@@ -0,0 +1,67 @@
+package com.eliasnogueira.paymentservice.model.id;
+
+import com.eliasnogueira.paymentservice.model.Payment;
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Payment id generator selected by {@code payment.id.strategy}: {@code sequence} (default) uses the pooled database
+ * sequence, {@code time-ordered} uses {@link TimeOrderedIds} with {@code payment.id.node-id} and never touches the
+ * database. The settings reach Hibernate through {@code PaymentIdConfig}.
+ * <p>
+ * With {@code payment.id.shard-count} above one, ids are time-ordered and encode the payer's shard, see
+ * {@link ShardedIds}.
+ */
+public class PaymentIdGenerator extends SequenceStyleGenerator {
+
+    public static final String STRATEGY_SETTING = "payment.id.strategy";
+    public static final String NODE_ID_SETTING = "payment.id.node-id";
+    public static final String SHARD_COUNT_SETTING = "payment.id.shard-count";
+    public static final String TIME_ORDERED = "time-ordered";
+
+    private final PaymentId config;
+    // one generator per shard, a single one when not sharded
+    private TimeOrderedIds[] timeOrderedIds;
+
+    public PaymentIdGenerator(PaymentId config) {
+        this.config = config;
+    }
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) throws MappingException {
+        parameters.put(SEQUENCE_PARAM, config.sequenceName());
+        parameters.put(INCREMENT_PARAM, String.valueOf(config.allocationSize()));
+        super.configure(type, parameters, serviceRegistry);
+
+        Map<String, Object> settings = serviceRegistry.requireService(ConfigurationService.class).getSettings();
+        long nodeId = Long.parseLong(String.valueOf(settings.getOrDefault(NODE_ID_SETTING, 0)));
+        int shardCount = Integer.parseInt(String.valueOf(settings.getOrDefault(SHARD_COUNT_SETTING, 1)));
+
+        if (shardCount > 1) {
+            timeOrderedIds = new TimeOrderedIds[shardCount];
+            for (int shard = 0; shard < shardCount; shard++) {
+                timeOrderedIds[shard] = new TimeOrderedIds(ShardedIds.nodeId(nodeId, shard, shardCount));
+            }
+        } else if (TIME_ORDERED.equals(String.valueOf(settings.get(STRATEGY_SETTING)))) {
+            timeOrderedIds = new TimeOrderedIds[] {new TimeOrderedIds(nodeId)};
+        }
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        if (timeOrderedIds == null) {
+            return super.generate(session, object);
+        }
+        if (timeOrderedIds.length == 1) {
+            return timeOrderedIds[0].nextId();
+        }
+        return timeOrderedIds[ShardedIds.shardOf(((Payment) object).getPayerId(), timeOrderedIds.length)].nextId();
+    }
+}
@@ -0,0 +1,25 @@
+package com.eliasnogueira.paymentservice.model.id;
+
+import java.util.UUID;
+
+/**
+ * Placement of payments on shards. A payer always lives on the shard picked by the hash of its id, and every payment id
+ * carries its shard in the {@link TimeOrderedIds} node id, as {@code nodeId * shardCount + shard}.
+ */
+public final class ShardedIds {
+
+    private ShardedIds() {
+    }
+
+    public static int shardOf(UUID payerId, int shardCount) {
+        return Math.floorMod(payerId.hashCode(), shardCount);
+    }
+
+    public static int shardOf(long paymentId, int shardCount) {
+        return (int) (TimeOrderedIds.nodeId(paymentId) % shardCount);
+    }
+
+    public static long nodeId(long nodeId, int shard, int shardCount) {
+        return nodeId * shardCount + shard;
+    }
+}
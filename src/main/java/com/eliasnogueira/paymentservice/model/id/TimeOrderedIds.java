@@ -0,0 +1,60 @@
+package com.eliasnogueira.paymentservice.model.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free generator of 64-bit ids made of 41 bits of milliseconds since {@link #EPOCH_MILLIS}, 10 bits of node id
+ * and 12 bits of sequence. Ids are strictly increasing per node, so inserts always land on the right edge of the
+ * primary key index.
+ * <p>
+ * When the 4096 ids of a millisecond are used up, or the clock moves backwards, the generator keeps counting into the
+ * following milliseconds instead of waiting, which keeps ids unique and monotonic.
+ */
+public final class TimeOrderedIds {
+
+    public static final long EPOCH_MILLIS = 1_735_689_600_000L; // 2025-01-01T00:00:00Z
+    public static final int NODE_BITS = 10;
+    public static final int SEQUENCE_BITS = 12;
+    public static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long nodeId;
+    private final LongSupplier clock;
+    // (milliseconds since the epoch << SEQUENCE_BITS) | sequence of the last id handed out
+    private final AtomicLong lastState = new AtomicLong();
+
+    public TimeOrderedIds(long nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    public TimeOrderedIds(long nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    public long nextId() {
+        while (true) {
+            long last = lastState.get();
+            long now = clock.getAsLong() - EPOCH_MILLIS;
+            long next = now > last >>> SEQUENCE_BITS ? now << SEQUENCE_BITS : last + 1;
+
+            if (lastState.compareAndSet(last, next)) {
+                long millis = next >>> SEQUENCE_BITS;
+                return millis << (NODE_BITS + SEQUENCE_BITS) | nodeId << SEQUENCE_BITS | next & SEQUENCE_MASK;
+            }
+        }
+    }
+
+    public static long timestampMillis(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+
+    public static long nodeId(long id) {
+        return id >>> SEQUENCE_BITS & MAX_NODE_ID;
+    }
+}
@@ -0,0 +1,273 @@
+package com.eliasnogueira.paymentservice.repository;
+
+import com.eliasnogueira.paymentservice.model.MinorUnits;
+import com.eliasnogueira.paymentservice.model.Payment;
+import com.eliasnogueira.paymentservice.model.enums.PaymentSource;
+import com.eliasnogueira.paymentservice.model.enums.PaymentStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Immutable file of archived payments ordered by id. Rows are packed into independently deflated blocks of
+ * {@link #ROWS_PER_BLOCK}, and the uncompressed footer holds the first id of every block plus the blocks each payer
+ * appears in, so a lookup inflates only the blocks it needs.
+ * <pre>
+ * block*  footer: blockCount, (firstId, lastId, offset, length)*, payerCount, (payerId, blockCount, block*)*
+ * trailer: footerOffset, MAGIC
+ * </pre>
+ */
+public final class ArchiveSegment {
+
+    static final int ROWS_PER_BLOCK = 256;
+
+    private static final int MAGIC = 0x50415953;
+    private static final int TRAILER_BYTES = Long.BYTES + Integer.BYTES;
+
+    private final Path path;
+    private final long sequence;
+    private final long[] firstIds;
+    private final long[] lastIds;
+    private final long[] offsets;
+    private final int[] lengths;
+    private final Map<UUID, int[]> payerBlocks;
+
+    private ArchiveSegment(Path path, long sequence, long[] firstIds, long[] lastIds, long[] offsets, int[] lengths,
+                           Map<UUID, int[]> payerBlocks) {
+        this.path = path;
+        this.sequence = sequence;
+        this.firstIds = firstIds;
+        this.lastIds = lastIds;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.payerBlocks = payerBlocks;
+    }
+
+    /**
+     * Writes the payments, which must be ordered by id, and forces the file to disk.
+     */
+    static ArchiveSegment write(Path path, long sequence, List<Payment> payments) throws IOException {
+        int blockCount = (payments.size() + ROWS_PER_BLOCK - 1) / ROWS_PER_BLOCK;
+        long[] firstIds = new long[blockCount];
+        long[] lastIds = new long[blockCount];
+        long[] offsets = new long[blockCount];
+        int[] lengths = new int[blockCount];
+        Map<UUID, List<Integer>> payers = new LinkedHashMap<>();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long offset = 0;
+            for (int block = 0; block < blockCount; block++) {
+                var rows = payments.subList(block * ROWS_PER_BLOCK,
+                        Math.min(payments.size(), (block + 1) * ROWS_PER_BLOCK));
+                byte[] bytes = deflate(rows);
+                writeFully(channel, ByteBuffer.wrap(bytes));
+
+                firstIds[block] = rows.getFirst().getId();
+                lastIds[block] = rows.getLast().getId();
+                offsets[block] = offset;
+                lengths[block] = bytes.length;
+                offset += bytes.length;
+                for (Payment payment : rows) {
+                    List<Integer> blocks = payers.computeIfAbsent(payment.getPayerId(), id -> new ArrayList<>());
+                    if (blocks.isEmpty() || blocks.getLast() != block) {
+                        blocks.add(block);
+                    }
+                }
+            }
+
+            var footer = new ByteArrayOutputStream();
+            var out = new DataOutputStream(footer);
+            out.writeInt(blockCount);
+            for (int block = 0; block < blockCount; block++) {
+                out.writeLong(firstIds[block]);
+                out.writeLong(lastIds[block]);
+                out.writeLong(offsets[block]);
+                out.writeInt(lengths[block]);
+            }
+            out.writeInt(payers.size());
+            for (var payer : payers.entrySet()) {
+                out.writeLong(payer.getKey().getMostSignificantBits());
+                out.writeLong(payer.getKey().getLeastSignificantBits());
+                out.writeInt(payer.getValue().size());
+                for (int block : payer.getValue()) {
+                    out.writeInt(block);
+                }
+            }
+            out.writeLong(offset);
+            out.writeInt(MAGIC);
+            writeFully(channel, ByteBuffer.wrap(footer.toByteArray()));
+            channel.force(true);
+        }
+
+        Map<UUID, int[]> payerBlocks = new HashMap<>();
+        payers.forEach((payerId, blocks) ->
+                payerBlocks.put(payerId, blocks.stream().mapToInt(Integer::intValue).toArray()));
+        return new ArchiveSegment(path, sequence, firstIds, lastIds, offsets, lengths, payerBlocks);
+    }
+
+    /**
+     * Reads the footer of an existing segment; blocks are read on demand.
+     */
+    static ArchiveSegment open(Path path, long sequence) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer trailer = read(channel, size - TRAILER_BYTES, TRAILER_BYTES);
+            long footerOffset = trailer.getLong();
+            if (trailer.getInt() != MAGIC) {
+                throw new IOException("Not an archive segment: " + path);
+            }
+
+            var in = new DataInputStream(new ByteArrayInputStream(
+                    read(channel, footerOffset, (int) (size - TRAILER_BYTES - footerOffset)).array()));
+            int blockCount = in.readInt();
+            long[] firstIds = new long[blockCount];
+            long[] lastIds = new long[blockCount];
+            long[] offsets = new long[blockCount];
+            int[] lengths = new int[blockCount];
+            for (int block = 0; block < blockCount; block++) {
+                firstIds[block] = in.readLong();
+                lastIds[block] = in.readLong();
+                offsets[block] = in.readLong();
+                lengths[block] = in.readInt();
+            }
+
+            int payerCount = in.readInt();
+            Map<UUID, int[]> payerBlocks = HashMap.newHashMap(payerCount);
+            for (int i = 0; i < payerCount; i++) {
+                var payerId = new UUID(in.readLong(), in.readLong());
+                int[] blocks = new int[in.readInt()];
+                for (int j = 0; j < blocks.length; j++) {
+                    blocks[j] = in.readInt();
+                }
+                payerBlocks.put(payerId, blocks);
+            }
+            return new ArchiveSegment(path, sequence, firstIds, lastIds, offsets, lengths, payerBlocks);
+        }
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    long sequence() {
+        return sequence;
+    }
+
+    public long firstId() {
+        return firstIds[0];
+    }
+
+    Optional<Payment> find(long id) {
+        // blocks are ordered by id, the candidate is the last one starting at or before it
+        int block = Arrays.binarySearch(firstIds, id);
+        if (block < 0) {
+            block = -block - 2;
+        }
+        if (block < 0 || id > lastIds[block]) {
+            return Optional.empty();
+        }
+        return readBlock(block).stream().filter(payment -> payment.getId() == id).findFirst();
+    }
+
+    List<Payment> findByPayerId(UUID payerId) {
+        int[] blocks = payerBlocks.get(payerId);
+        if (blocks == null) {
+            return List.of();
+        }
+
+        List<Payment> payments = new ArrayList<>();
+        for (int block : blocks) {
+            readBlock(block).stream().filter(payment -> payerId.equals(payment.getPayerId())).forEach(payments::add);
+        }
+        return payments;
+    }
+
+    void forEach(Consumer<Payment> action) {
+        for (int block = 0; block < firstIds.length; block++) {
+            readBlock(block).forEach(action);
+        }
+    }
+
+    private List<Payment> readBlock(int block) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return inflate(read(channel, offsets[block], lengths[block]).array());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unreadable archive segment " + path, e);
+        }
+    }
+
+    private static byte[] deflate(List<Payment> payments) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            out.writeInt(payments.size());
+            for (Payment payment : payments) {
+                out.writeLong(payment.getId());
+                out.writeLong(payment.getPayerId().getMostSignificantBits());
+                out.writeLong(payment.getPayerId().getLeastSignificantBits());
+                out.writeUTF(payment.getPaymentSource().name());
+                out.writeLong(MinorUnits.of(payment.getAmount()));
+                out.writeUTF(payment.getStatus().name());
+                out.writeLong(payment.getCreatedAt().toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(payment.getCreatedAt().getNano());
+                out.writeLong(payment.getVersion());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<Payment> inflate(byte[] block) throws IOException {
+        try (var in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(block)))) {
+            int rows = in.readInt();
+            List<Payment> payments = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                payments.add(Payment.builder()
+                        .id(in.readLong())
+                        .payerId(new UUID(in.readLong(), in.readLong()))
+                        .paymentSource(PaymentSource.valueOf(in.readUTF()))
+                        .amount(MinorUnits.toBigDecimal(in.readLong()))
+                        .status(PaymentStatus.valueOf(in.readUTF()))
+                        .createdAt(LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC))
+                        .version(in.readLong())
+                        .build());
+            }
+            return payments;
+        }
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Truncated archive segment");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.eliasnogueira.paymentservice.repository;
+
+import com.eliasnogueira.paymentservice.model.MinorUnits;
+import com.eliasnogueira.paymentservice.model.Payment;
+import com.eliasnogueira.paymentservice.model.enums.PaymentSource;
+import com.eliasnogueira.paymentservice.model.enums.PaymentStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+
+/**
+ * Payment change stored in the {@link PaymentJournal}. On disk every record is a frame of payload length, CRC32C of the
+ * payload and the payload, whose first byte is the record type. A zero length marks the end of the written part.
+ */
+public sealed interface JournalRecord {
+
+    int HEADER_BYTES = 2 * Integer.BYTES;
+
+    /**
+     * Full image of a payment, written when it is created and for every row of a snapshot.
+     */
+    record Row(Payment payment) implements JournalRecord {
+    }
+
+    record StatusChange(long id, PaymentStatus status, long version) implements JournalRecord {
+    }
+
+    record Deleted(long id) implements JournalRecord {
+    }
+
+    default byte[] toFrame() {
+        var bytes = new ByteArrayOutputStream(96);
+        try (var out = new DataOutputStream(bytes)) {
+            out.writeLong(0);
+            switch (this) {
+                case Row(Payment payment) -> {
+                    out.writeByte(1);
+                    out.writeLong(payment.getId());
+                    out.writeLong(payment.getPayerId().getMostSignificantBits());
+                    out.writeLong(payment.getPayerId().getLeastSignificantBits());
+                    out.writeUTF(payment.getPaymentSource().name());
+                    out.writeLong(MinorUnits.of(payment.getAmount()));
+                    out.writeUTF(payment.getStatus().name());
+                    out.writeLong(payment.getCreatedAt().toEpochSecond(ZoneOffset.UTC));
+                    out.writeInt(payment.getCreatedAt().getNano());
+                    out.writeLong(payment.getVersion());
+                }
+                case StatusChange(long id, PaymentStatus status, long version) -> {
+                    out.writeByte(2);
+                    out.writeLong(id);
+                    out.writeUTF(status.name());
+                    out.writeLong(version);
+                }
+                case Deleted(long id) -> {
+                    out.writeByte(3);
+                    out.writeLong(id);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        ByteBuffer frame = ByteBuffer.wrap(bytes.toByteArray());
+        int length = frame.capacity() - HEADER_BYTES;
+        var crc = new CRC32C();
+        crc.update(frame.array(), HEADER_BYTES, length);
+        return frame.putInt(0, length).putInt(Integer.BYTES, (int) crc.getValue()).array();
+    }
+
+    /**
+     * Reads the frame at the buffer's position, advancing past it. Returns {@code null} and leaves the position
+     * unchanged at the end of the written part or at a torn frame.
+     */
+    static JournalRecord readFrame(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_BYTES) {
+            return null;
+        }
+        int start = buffer.position();
+        int length = buffer.getInt(start);
+        if (length <= 0 || length > buffer.remaining() - HEADER_BYTES) {
+            return null;
+        }
+
+        ByteBuffer payload = buffer.slice(start + HEADER_BYTES, length);
+        var crc = new CRC32C();
+        crc.update(payload.duplicate());
+        if ((int) crc.getValue() != buffer.getInt(start + Integer.BYTES)) {
+            return null;
+        }
+
+        buffer.position(start + HEADER_BYTES + length);
+        return switch (payload.get()) {
+            case 1 -> new Row(Payment.builder()
+                    .id(payload.getLong())
+                    .payerId(new UUID(payload.getLong(), payload.getLong()))
+                    .paymentSource(PaymentSource.valueOf(readUtf(payload)))
+                    .amount(MinorUnits.toBigDecimal(payload.getLong()))
+                    .status(PaymentStatus.valueOf(readUtf(payload)))
+                    .createdAt(LocalDateTime.ofEpochSecond(payload.getLong(), payload.getInt(), ZoneOffset.UTC))
+                    .version(payload.getLong())
+                    .build());
+            case 2 -> new StatusChange(payload.getLong(), PaymentStatus.valueOf(readUtf(payload)), payload.getLong());
+            case 3 -> new Deleted(payload.getLong());
+            default -> throw new IllegalStateException("Unknown journal record type at " + start);
+        };
+    }
+
+    // enum names are ASCII, so the modified UTF-8 of DataOutputStream is plain UTF-8 here
+    private static String readUtf(ByteBuffer payload) {
+        byte[] bytes = new byte[Short.toUnsignedInt(payload.getShort())];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,20 @@
+package com.eliasnogueira.paymentservice.repository;
+
+import com.eliasnogueira.paymentservice.model.enums.PaymentSource;
+import com.eliasnogueira.paymentservice.model.enums.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public interface PayerAggregate {
+
+    UUID getPayerId();
+
+    PaymentSource getPaymentSource();
+
+    PaymentStatus getStatus();
+
+    Long getPaymentCount();
+
+    BigDecimal getTotal();
+}
@@ -0,0 +1,11 @@
+package com.eliasnogueira.paymentservice.repository;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public interface PayerDailyTotal {
+
+    UUID getPayerId();
+
+    BigDecimal getTotal();
+}
@@ -0,0 +1,10 @@
+package com.eliasnogueira.paymentservice.repository;
+
+public interface PayerRevision {
+
+    Long getPaymentCount();
+
+    Long getVersionTotal();
+
+    Long getLastId();
+}
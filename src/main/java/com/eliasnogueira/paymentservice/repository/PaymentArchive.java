@@ -0,0 +1,124 @@
+package com.eliasnogueira.paymentservice.repository;
+
+import com.eliasnogueira.paymentservice.model.Payment;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Settled payments moved out of the {@code payments} table, kept as append-only {@link ArchiveSegment} files under
+ * {@code payment.archive.directory}. When the same payment ends up in two segments, the newest one wins.
+ */
+@Slf4j
+@Repository
+public class PaymentArchive {
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d+)\\.seg");
+
+    private final Path directory;
+    // newest segment first
+    private final List<ArchiveSegment> segments = new CopyOnWriteArrayList<>();
+
+    public PaymentArchive(@Value("${payment.archive.directory:data/archive}") Path directory) {
+        this.directory = directory;
+        if (Files.isDirectory(directory)) {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Matcher name = SEGMENT_NAME.matcher(file.getFileName().toString());
+                    if (name.matches()) {
+                        segments.add(ArchiveSegment.open(file, Long.parseLong(name.group(1))));
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Archive could not be opened: " + directory, e);
+            }
+            segments.sort(Comparator.comparingLong(ArchiveSegment::sequence).reversed());
+            log.info("Payment archive opened with {} segments in {}", segments.size(), directory);
+        }
+    }
+
+    public Optional<Payment> findById(long id) {
+        for (ArchiveSegment segment : segments) {
+            var payment = segment.find(id);
+            if (payment.isPresent()) {
+                return payment;
+            }
+        }
+        return Optional.empty();
+    }
+
+    public List<Payment> findByPayerId(UUID payerId) {
+        Map<Long, Payment> payments = new LinkedHashMap<>();
+        for (ArchiveSegment segment : segments) {
+            segment.findByPayerId(payerId).forEach(payment -> payments.putIfAbsent(payment.getId(), payment));
+        }
+        return new ArrayList<>(payments.values());
+    }
+
+    /**
+     * Visits every archived row, including older copies of a payment archived twice.
+     */
+    public void forEach(Consumer<Payment> action) {
+        segments.forEach(segment -> segment.forEach(action));
+    }
+
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Sequence of the newest segment, 0 while the archive is empty; it grows with every segment appended.
+     */
+    public long newestSequence() {
+        return segments.isEmpty() ? 0 : segments.getFirst().sequence();
+    }
+
+    /**
+     * Writes the payments, ordered by id, as a new segment that is visible to readers as soon as this returns.
+     */
+    public synchronized ArchiveSegment append(List<Payment> payments) {
+        long sequence = segments.isEmpty() ? 1 : segments.getFirst().sequence() + 1;
+        try {
+            Files.createDirectories(directory);
+            var segment = ArchiveSegment.write(directory.resolve("segment-%016d.seg".formatted(sequence)), sequence,
+                    payments);
+            segments.addFirst(segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Archive segment could not be written in " + directory, e);
+        }
+    }
+
+    /**
+     * Removes a segment whose rows are still in the table, after its transaction rolled back.
+     */
+    public synchronized void drop(ArchiveSegment segment) {
+        segments.remove(segment);
+        try {
+            Files.deleteIfExists(segment.path());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Archive segment could not be deleted: " + segment.path(), e);
+        }
+    }
+
+    public Optional<ArchiveSegment> newestSegment() {
+        return segments.stream().findFirst();
+    }
+}
@@ -0,0 +1,424 @@
+package com.eliasnogueira.paymentservice.repository;
+
+import com.eliasnogueira.paymentservice.model.Payment;
+import com.eliasnogueira.paymentservice.model.enums.PaymentStatus;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of payment changes under {@code payment.journal.directory}, so an in-memory database can be rebuilt
+ * after a restart. Records are {@link JournalRecord} frames copied into memory-mapped, preallocated segment files named
+ * after the journal position they start at.
+ * <p>
+ * A change is appended once its transaction commits, and the committing thread waits until a flusher thread has
+ * forced it to disk. Every force covers all frames appended while the previous one ran, so concurrent writers share
+ * it. With {@code payment.journal.sync=false} nobody waits and the journal only survives a crash of the process.
+ * <p>
+ * A snapshot holds every row at a journal position, so a restart replays the newest snapshot and the journal after it,
+ * and the segments before it are deleted. Replaying is idempotent: a record already reflected by the database is a
+ * no-op. Nothing is written or read unless {@code payment.journal.enabled} is set.
+ */
+@Slf4j
+@Repository
+public class PaymentJournal {
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("journal-(\\d+)\\.log");
+    private static final Pattern SNAPSHOT_NAME = Pattern.compile("snapshot-(\\d+)\\.snap");
+    private static final Pattern UNFINISHED_SNAPSHOT_NAME = Pattern.compile("snapshot-(\\d+)\\.snap\\.tmp");
+    private static final byte[] ZEROS = new byte[64 * 1024];
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean sync;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+    private MappedByteBuffer segment;
+    private long segmentStart;
+    private long durable;
+    private boolean closed;
+    private RuntimeException flushFailure;
+    private Thread flusher;
+
+    public PaymentJournal(@Value("${payment.journal.enabled:false}") boolean enabled,
+                          @Value("${payment.journal.directory:data/journal}") Path directory,
+                          @Value("${payment.journal.segment-size:64MB}") DataSize segmentSize,
+                          @Value("${payment.journal.sync:true}") boolean sync) {
+        this.enabled = enabled;
+        this.directory = directory;
+        this.segmentSize = Math.toIntExact(segmentSize.toBytes());
+        this.sync = sync;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Passes the newest snapshot and every journaled record after it to the replay, in order, then starts appending
+     * after the last intact frame. A torn frame at the end of the journal, left by a crash, is discarded.
+     */
+    public void open(Consumer<JournalRecord> replay) {
+        lock.lock();
+        try {
+            if (!enabled || segment != null) {
+                throw new IllegalStateException("Journal is disabled or already open");
+            }
+            Files.createDirectories(directory);
+            for (Path unfinished : list(UNFINISHED_SNAPSHOT_NAME).values()) {
+                Files.delete(unfinished);
+            }
+            long position = 0;
+            NavigableMap<Long, Path> snapshots = list(SNAPSHOT_NAME);
+            if (!snapshots.isEmpty()) {
+                position = snapshots.lastKey();
+                readSnapshot(snapshots.lastEntry().getValue(), replay);
+            }
+
+            NavigableMap<Long, Path> segments = list(SEGMENT_NAME);
+            Long first = segments.floorKey(position);
+            for (var entry : segments.tailMap(first == null ? position : first, true).entrySet()) {
+                boolean last = entry.getKey().equals(segments.lastKey());
+                ByteBuffer buffer = map(entry.getValue(), FileChannel.MapMode.READ_ONLY);
+                buffer.position((int) Math.min(buffer.capacity(), Math.max(0, position - entry.getKey())));
+                replaySegment(entry.getValue(), buffer, replay, last);
+                position = entry.getKey() + buffer.position();
+            }
+
+            if (segments.isEmpty()) {
+                startSegment(position);
+            } else {
+                segmentStart = segments.lastKey();
+                segment = map(segments.lastEntry().getValue(), FileChannel.MapMode.READ_WRITE);
+                segment.position((int) (position - segmentStart));
+                clearTail();
+            }
+            durable = position;
+            if (sync) {
+                flusher = Thread.ofPlatform().daemon().name("payment-journal-flusher").start(this::flushLoop);
+            }
+            log.info("Payment journal opened at position {} in {}", position, directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Journal could not be opened in " + directory, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void recordCreated(List<Payment> payments) {
+        if (enabled && !payments.isEmpty()) {
+            afterCommit(payments.stream().<JournalRecord>map(JournalRecord.Row::new).toList());
+        }
+    }
+
+    public void recordStatusChange(long id, PaymentStatus status, long version) {
+        if (enabled) {
+            afterCommit(List.of(new JournalRecord.StatusChange(id, status, version)));
+        }
+    }
+
+    public void recordDeleted(List<Long> ids) {
+        if (enabled && !ids.isEmpty()) {
+            afterCommit(ids.stream().<JournalRecord>map(JournalRecord.Deleted::new).toList());
+        }
+    }
+
+    /**
+     * Appends the records in order and returns the journal position after the last one.
+     */
+    public long append(List<JournalRecord> records) {
+        List<byte[]> frames = records.stream().map(JournalRecord::toFrame).toList();
+        lock.lock();
+        try {
+            if (segment == null || closed) {
+                throw new IllegalStateException("Journal is not open");
+            }
+            for (byte[] frame : frames) {
+                if (frame.length > segment.remaining()) {
+                    roll();
+                }
+                segment.put(frame);
+            }
+            appended.signal();
+            return position();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Journal segment could not be created in " + directory, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until every frame before the position is on disk; returns at once when the journal does not sync.
+     */
+    public void awaitDurable(long position) {
+        if (!sync) {
+            return;
+        }
+        lock.lock();
+        try {
+            while (durable < position) {
+                if (flushFailure != null) {
+                    throw flushFailure;
+                }
+                if (closed) {
+                    throw new IllegalStateException("Journal closed before the position was forced: " + position);
+                }
+                flushed.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the journal", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes a snapshot of the rows the writer emits and deletes the segments and snapshots it makes obsolete. The
+     * writer must see at least every change committed before this is called; later changes are replayed on top of it.
+     */
+    public void snapshot(Consumer<Consumer<Payment>> writer) {
+        long position;
+        lock.lock();
+        try {
+            if (segment == null || closed) {
+                throw new IllegalStateException("Journal is not open");
+            }
+            position = position();
+        } finally {
+            lock.unlock();
+        }
+
+        Path target = directory.resolve("snapshot-%020d.snap".formatted(position));
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+            writer.accept(payment -> {
+                try {
+                    out.write(new JournalRecord.Row(payment).toFrame());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+            channel.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Journal snapshot could not be written: " + temporary, e);
+        }
+
+        try {
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+            deleteBefore(position);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Journal snapshot could not be published: " + target, e);
+        }
+        log.info("Journal snapshot written at position {}", position);
+    }
+
+    @PreDestroy
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            appended.signalAll();
+            flushed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (flusher != null) {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        lock.lock();
+        try {
+            if (segment != null) {
+                segment.force();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void afterCommit(List<JournalRecord> records) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            awaitDurable(append(records));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                awaitDurable(append(records));
+            }
+        });
+    }
+
+    private long position() {
+        return segmentStart + segment.position();
+    }
+
+    private void flushLoop() {
+        lock.lock();
+        try {
+            while (!closed) {
+                if (durable >= position()) {
+                    appended.await();
+                    continue;
+                }
+                // an append may roll the segment while the lock is released, moving durable past this range
+                long from = durable;
+                long target = position();
+                long start = segmentStart;
+                MappedByteBuffer buffer = segment;
+                lock.unlock();
+                try {
+                    buffer.force((int) (from - start), (int) (target - from));
+                } finally {
+                    lock.lock();
+                }
+                // a roll forced the whole segment and already moved durable to its end
+                if (segmentStart == start) {
+                    durable = Math.max(durable, target);
+                    flushed.signalAll();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Journal could not be forced to disk", e);
+            flushFailure = e;
+            flushed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // the rest of the full segment stays zeroed, which readers take as the end of it
+    private void roll() throws IOException {
+        if (segment.position() == 0) {
+            throw new IllegalStateException("Journal record larger than payment.journal.segment-size");
+        }
+        segment.force();
+        durable = position();
+        flushed.signalAll();
+        startSegment(position());
+    }
+
+    private void startSegment(long start) throws IOException {
+        Path path = directory.resolve("journal-%020d.log".formatted(start));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+        segmentStart = start;
+    }
+
+    // whatever a torn frame left behind must not look like a frame once the next one is shorter
+    private void clearTail() {
+        ByteBuffer tail = segment.duplicate();
+        while (tail.hasRemaining()) {
+            tail.put(ZEROS, 0, Math.min(ZEROS.length, tail.remaining()));
+        }
+    }
+
+    private static void replaySegment(Path path, ByteBuffer buffer, Consumer<JournalRecord> replay, boolean last) {
+        JournalRecord journalRecord;
+        while ((journalRecord = JournalRecord.readFrame(buffer)) != null) {
+            replay.accept(journalRecord);
+        }
+        if (buffer.remaining() >= JournalRecord.HEADER_BYTES && buffer.getInt(buffer.position()) != 0) {
+            if (!last) {
+                throw new IllegalStateException("Corrupt journal segment " + path + " at " + buffer.position());
+            }
+            log.warn("Discarding torn journal frame in {} at {}", path, buffer.position());
+        }
+    }
+
+    private static void readSnapshot(Path path, Consumer<JournalRecord> replay) throws IOException {
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 64 * 1024))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    return;
+                }
+                ByteBuffer frame = ByteBuffer.allocate(JournalRecord.HEADER_BYTES + length).putInt(length);
+                in.readFully(frame.array(), Integer.BYTES, frame.capacity() - Integer.BYTES);
+                JournalRecord journalRecord = JournalRecord.readFrame(frame.rewind());
+                if (journalRecord == null) {
+                    throw new IOException("Corrupt journal snapshot " + path);
+                }
+                replay.accept(journalRecord);
+            }
+        }
+    }
+
+    private void deleteBefore(long position) throws IOException {
+        NavigableMap<Long, Path> segments = list(SEGMENT_NAME);
+        // a segment ends where the next one starts
+        List<Path> obsolete = new ArrayList<>(segments.headMap(segments.floorKey(position), false).values());
+        obsolete.addAll(list(SNAPSHOT_NAME).headMap(position, false).values());
+        for (Path path : obsolete) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private NavigableMap<Long, Path> list(Pattern pattern) throws IOException {
+        NavigableMap<Long, Path> files = new TreeMap<>();
+        try (Stream<Path> paths = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) paths::iterator) {
+                Matcher name = pattern.matcher(file.getFileName().toString());
+                if (name.matches()) {
+                    files.put(Long.parseLong(name.group(1)), file);
+                }
+            }
+        }
+        return files;
+    }
+
+    private static MappedByteBuffer map(Path path, FileChannel.MapMode mode) throws IOException {
+        try (FileChannel channel = mode == FileChannel.MapMode.READ_ONLY
+                ? FileChannel.open(path, StandardOpenOption.READ)
+                : FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(mode, 0, channel.size());
+        }
+    }
+}
@@ -1,24 +1,114 @@
 package com.eliasnogueira.paymentservice.repository;
 
+import com.eliasnogueira.paymentservice.dto.PaymentResponse;
 import com.eliasnogueira.paymentservice.model.Payment;
+import com.eliasnogueira.paymentservice.model.enums.PaymentSource;
+import com.eliasnogueira.paymentservice.model.enums.PaymentStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
 
+    // read endpoints select straight into the response, without managed entities or dirty-checking snapshots
+    String RESPONSE = "SELECT new com.eliasnogueira.paymentservice.dto.PaymentResponse(p.id, p.payerId, " +
+            "p.paymentSource, p.amount, p.status, p.version) FROM Payment p ";
+
+    String ROW = "SELECT new com.eliasnogueira.paymentservice.repository.PaymentRow(p.id, p.payerId, " +
+            "p.paymentSource, p.amount, p.status, p.version, p.status) FROM Payment p ";
+
     @Query("SELECT COALESCE(SUM(p.amount), 0) FROM Payment p WHERE p.payerId = :payerId AND " +
             "p.createdAt >= :start AND p.createdAt < :end")
     BigDecimal sumPaymentsByPayerIdAndDate(@Param("payerId") UUID payerId,
                                            @Param("start") LocalDateTime start,
                                            @Param("end") LocalDateTime end);
 
-    List<Payment> findAllByPayerId(UUID payerId);
+    @Query("SELECT p.payerId AS payerId, SUM(p.amount) AS total FROM Payment p WHERE " +
+            "p.createdAt >= :start AND p.createdAt < :end GROUP BY p.payerId")
+    List<PayerDailyTotal> sumPaymentsByPayerForPeriod(@Param("start") LocalDateTime start,
+                                                      @Param("end") LocalDateTime end);
+
+    @Transactional(readOnly = true)
+    @Query(RESPONSE + "WHERE p.id = :id")
+    Optional<PaymentResponse> findResponseById(@Param("id") Long id);
+
+    @Transactional(readOnly = true)
+    @Query(RESPONSE + "WHERE p.payerId = :payerId")
+    List<PaymentResponse> findResponsesByPayerId(@Param("payerId") UUID payerId);
+
+    @Transactional(readOnly = true)
+    @Query("SELECT p.version FROM Payment p WHERE p.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    // creating a payment raises the last id, updating one the version total and archiving one lowers the count,
+    // so no two states of a payer's rows share a revision
+    @Transactional(readOnly = true)
+    @Query("SELECT COUNT(p) AS paymentCount, COALESCE(SUM(p.version), 0) AS versionTotal, " +
+            "COALESCE(MAX(p.id), 0) AS lastId FROM Payment p WHERE p.payerId = :payerId")
+    PayerRevision findRevisionByPayerId(@Param("payerId") UUID payerId);
+
+    @Transactional(readOnly = true)
+    @Query(RESPONSE + "WHERE p.id > :afterId ORDER BY p.id")
+    List<PaymentResponse> findResponsesAfterId(@Param("afterId") Long afterId, Limit limit);
+
+    // locked, so the status read here is still the one the update that follows replaces
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(ROW + "WHERE p.id = :id")
+    Optional<PaymentRow> findRowForUpdate(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = :status, p.version = p.version + 1 " +
+            "WHERE p.id = :id AND p.version = :version")
+    int updateStatus(@Param("id") Long id, @Param("status") PaymentStatus status, @Param("version") Long version);
+
+    /**
+     * Changes the status with a locking read and a plain UPDATE, without loading the entity, and returns the row as
+     * updated along with the status it replaced. Empty when the payment is missing or not at the expected version.
+     */
+    default Optional<PaymentRow> changeStatus(Long id, PaymentStatus status, Long expectedVersion) {
+        return findRowForUpdate(id)
+                .filter(row -> expectedVersion == null || expectedVersion.equals(row.getVersion()))
+                .filter(row -> updateStatus(id, status, row.getVersion()) == 1)
+                .map(row -> row.toBuilder().status(status).version(row.getVersion() + 1).build());
+    }
+
+    @Query("SELECT p.payerId AS payerId, p.paymentSource AS paymentSource, p.status AS status, " +
+            "COUNT(p) AS paymentCount, SUM(p.amount) AS total FROM Payment p " +
+            "GROUP BY p.payerId, p.paymentSource, p.status")
+    List<PayerAggregate> aggregateByPayer();
+
+    // locked so a status change cannot slip in between writing the archive segment and deleting the rows
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Payment p WHERE p.createdAt < :before AND " +
+            "p.status <> com.eliasnogueira.paymentservice.model.enums.PaymentStatus.PENDING ORDER BY p.id")
+    List<Payment> findArchivable(@Param("before") LocalDateTime before, Limit limit);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Payment p WHERE (:from IS NULL OR p.createdAt >= :from) AND " +
+            "(:to IS NULL OR p.createdAt < :to) AND (:status IS NULL OR p.status = :status) AND " +
+            "(:source IS NULL OR p.paymentSource = :source) ORDER BY p.id")
+    Stream<Payment> streamForExport(@Param("from") LocalDateTime from,
+                                    @Param("to") LocalDateTime to,
+                                    @Param("status") PaymentStatus status,
+                                    @Param("source") PaymentSource source);
 }
@@ -0,0 +1,26 @@
+package com.eliasnogueira.paymentservice.repository;
+
+import com.eliasnogueira.paymentservice.model.enums.PaymentSource;
+import com.eliasnogueira.paymentservice.model.enums.PaymentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentRow {
+
+    private Long id;
+    private UUID payerId;
+    private PaymentSource paymentSource;
+    private BigDecimal amount;
+    private PaymentStatus status;
+    private Long version;
+    private PaymentStatus previousStatus;
+}
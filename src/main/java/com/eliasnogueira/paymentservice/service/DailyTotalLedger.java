@@ -0,0 +1,200 @@
+package com.eliasnogueira.paymentservice.service;
+
+import com.eliasnogueira.paymentservice.model.MinorUnits;
+import com.eliasnogueira.paymentservice.repository.PaymentRepository;
+import com.eliasnogueira.paymentservice.validator.PaymentLimitValidator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory running total per payer and day in cents ({@link MinorUnits}), used by the daily limit check instead of the
+ * {@code SUM} query.
+ * {@code payment.limit.mode} switches to the database query ({@code DATABASE}) or compares both ({@code VERIFY}).
+ * <p>
+ * Reservations are atomic per payer: the ledger uses compare-and-set on the payer's counter, the database modes hold a
+ * striped per-payer lock until the transaction completes. Payments of unrelated payers never wait on each other.
+ */
+@Slf4j
+@Component
+public class DailyTotalLedger {
+
+    public enum Mode {
+        LEDGER, DATABASE, VERIFY
+    }
+
+    private final PaymentRepository paymentRepository;
+    private final PaymentShards paymentShards;
+    private final Mode mode;
+    private volatile ConcurrentMap<LedgerKey, AtomicLong> totals = new ConcurrentHashMap<>();
+    private final Lock[] stripes;
+
+    public DailyTotalLedger(PaymentRepository paymentRepository,
+                            PaymentShards paymentShards,
+                            @Value("${payment.limit.mode:LEDGER}") Mode mode,
+                            @Value("${payment.limit.lock-stripes:256}") int lockStripes) {
+        this.paymentRepository = paymentRepository;
+        this.paymentShards = paymentShards;
+        this.mode = mode;
+        this.stripes = new Lock[lockStripes];
+        for (int i = 0; i < lockStripes; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Replaces the totals with ones read from the database. Reservations made while it runs are lost, so it runs on
+     * startup before the web server takes requests ({@link StartupRebuilder}).
+     */
+    public void rebuild() {
+        ConcurrentMap<LedgerKey, AtomicLong> rebuilt = new ConcurrentHashMap<>();
+        if (mode == Mode.DATABASE) {
+            totals = rebuilt;
+            return;
+        }
+
+        LocalDate today = LocalDate.now();
+        paymentShards.onEveryShard(() -> paymentRepository
+                        .sumPaymentsByPayerForPeriod(today.atStartOfDay(), today.plusDays(1).atStartOfDay()))
+                .stream()
+                .flatMap(List::stream)
+                .forEach(row -> rebuilt.put(new LedgerKey(row.getPayerId(), today),
+                        new AtomicLong(MinorUnits.of(row.getTotal()))));
+        totals = rebuilt;
+        log.info("Daily total ledger rebuilt with {} payers for {}", rebuilt.size(), today);
+    }
+
+    public long dailyTotal(UUID payerId, LocalDate day) {
+        return mode == Mode.DATABASE ? databaseTotal(payerId, day) : ledgerTotal(payerId, day);
+    }
+
+    /**
+     * Atomically reserves the amount against the payer's daily limit, returning {@code false} when it would be
+     * exceeded. A reservation made inside a transaction is released if the transaction rolls back.
+     */
+    public boolean reserve(UUID payerId, LocalDate day, long amount) {
+        var key = new LedgerKey(payerId, day);
+        return mode == Mode.LEDGER ? reserveInLedger(key, amount) : reserveInDatabase(key, amount);
+    }
+
+    int lockOrder(UUID payerId) {
+        return Math.floorMod(payerId.hashCode(), stripes.length);
+    }
+
+    @Scheduled(cron = "${payment.limit.eviction-cron:0 0 * * * *}")
+    public void evictExpiredDays() {
+        LocalDate today = LocalDate.now();
+        totals.keySet().removeIf(key -> key.day().isBefore(today));
+    }
+
+    private boolean reserveInLedger(LedgerKey key, long amount) {
+        AtomicLong total = totals.computeIfAbsent(key, k -> new AtomicLong());
+        while (true) {
+            long current = total.get();
+            long updated = Math.addExact(current, amount);
+
+            if (!PaymentLimitValidator.isWithinLimit(updated)) {
+                return false;
+            }
+
+            if (total.compareAndSet(current, updated)) {
+                releaseOnRollback(total, amount);
+                return true;
+            }
+        }
+    }
+
+    // the payer's stripe stays locked until the transaction completes, so the next check sees the committed insert
+    private boolean reserveInDatabase(LedgerKey key, long amount) {
+        Lock lock = stripes[lockOrder(key.payerId())];
+        lock.lock();
+        boolean unlockOnCompletion = false;
+        try {
+            long dailyTotal = databaseTotal(key.payerId(), key.day());
+            if (mode == Mode.VERIFY) {
+                verify(key, dailyTotal);
+            }
+
+            if (!PaymentLimitValidator.isWithinLimit(Math.addExact(dailyTotal, amount))) {
+                return false;
+            }
+
+            if (mode == Mode.VERIFY) {
+                AtomicLong total = totals.computeIfAbsent(key, k -> new AtomicLong());
+                total.addAndGet(amount);
+                releaseOnRollback(total, amount);
+            }
+            unlockOnCompletion = unlockOnCompletion(lock);
+            return true;
+        } finally {
+            if (!unlockOnCompletion) {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static void releaseOnRollback(AtomicLong total, long amount) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    total.addAndGet(-amount);
+                }
+            }
+        });
+    }
+
+    private static boolean unlockOnCompletion(Lock lock) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+        return true;
+    }
+
+    private long ledgerTotal(UUID payerId, LocalDate day) {
+        AtomicLong total = totals.get(new LedgerKey(payerId, day));
+        return total == null ? 0 : total.get();
+    }
+
+    private long databaseTotal(UUID payerId, LocalDate day) {
+        BigDecimal total = paymentShards.onShard(paymentShards.shardOf(payerId), () -> paymentRepository
+                .sumPaymentsByPayerIdAndDate(payerId, day.atStartOfDay(), day.plusDays(1).atStartOfDay()));
+        return total == null ? 0 : MinorUnits.of(total);
+    }
+
+    private void verify(LedgerKey key, long fromDatabase) {
+        long fromLedger = ledgerTotal(key.payerId(), key.day());
+
+        if (fromLedger != fromDatabase) {
+            log.warn("Daily total mismatch for payer {} on {}: ledger={}, database={}", key.payerId(), key.day(),
+                    MinorUnits.toBigDecimal(fromLedger), MinorUnits.toBigDecimal(fromDatabase));
+        }
+    }
+
+    private record LedgerKey(UUID payerId, LocalDate day) {
+    }
+}
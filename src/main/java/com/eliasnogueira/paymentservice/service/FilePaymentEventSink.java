@@ -0,0 +1,75 @@
+package com.eliasnogueira.paymentservice.service;
+
+import com.eliasnogueira.paymentservice.dto.PaymentEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends every event as a JSON line to {@code payment.outbox.file.path}, forcing each batch to disk before the relay
+ * removes it from the outbox.
+ */
+@Component
+@ConditionalOnProperty(name = "payment.outbox.sink", havingValue = "file")
+public class FilePaymentEventSink implements PaymentEventSink {
+
+    private final Path path;
+    private final ObjectWriter jsonWriter;
+    private FileChannel channel;
+
+    public FilePaymentEventSink(@Value("${payment.outbox.file.path:data/outbox/payment-events.jsonl}") Path path,
+                                ObjectMapper objectMapper) {
+        this.path = path;
+        this.jsonWriter = objectMapper.writerFor(PaymentEvent.class);
+    }
+
+    @Override
+    public synchronized void publish(List<PaymentEvent> events) {
+        try {
+            var lines = new ByteArrayOutputStream(events.size() * 256);
+            for (PaymentEvent event : events) {
+                lines.write(jsonWriter.writeValueAsBytes(event));
+                lines.write('\n');
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toByteArray());
+            FileChannel file = channel();
+            while (buffer.hasRemaining()) {
+                file.write(buffer);
+            }
+            file.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Payment events could not be written to " + path, e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            Path parent = path.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        return channel;
+    }
+}
@@ -0,0 +1,179 @@
+package com.eliasnogueira.paymentservice.service;
+
+import com.eliasnogueira.paymentservice.config.ReadWriteRoutingDataSource;
+import com.eliasnogueira.paymentservice.dto.PaymentRequest;
+import com.eliasnogueira.paymentservice.dto.PaymentResponse;
+import com.eliasnogueira.paymentservice.exceptions.IdempotencyKeyMismatchException;
+import com.eliasnogueira.paymentservice.model.IdempotencyKey;
+import com.eliasnogueira.paymentservice.repository.IdempotencyKeyRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Replays the stored response of a payment created with the same {@code Idempotency-Key}. Recent keys are served from
+ * a bounded in-memory cache, older ones from the {@code idempotency_keys} table, which is written in the same
+ * transaction as the payment. A duplicate arriving while the first request is still running waits for its outcome.
+ * Only a request that creates the payment takes a token from the {@link PaymentRateLimiter}.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    private final PaymentService paymentService;
+    private final PaymentRateLimiter paymentRateLimiter;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final PaymentShards paymentShards;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final AsyncCache<String, StoredResponse> responses;
+
+    public IdempotencyService(PaymentService paymentService,
+                              PaymentRateLimiter paymentRateLimiter,
+                              IdempotencyKeyRepository idempotencyKeyRepository,
+                              PaymentShards paymentShards,
+                              TransactionTemplate transactionTemplate,
+                              ObjectMapper objectMapper,
+                              @Value("${payment.idempotency.ttl:24h}") Duration ttl,
+                              @Value("${payment.idempotency.cache-size:10000}") long cacheSize) {
+        this.paymentService = paymentService;
+        this.paymentRateLimiter = paymentRateLimiter;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.paymentShards = paymentShards;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        // a failed future is dropped by the cache, so a retry after an error runs the request again
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .buildAsync();
+    }
+
+    public PaymentResponse createPayment(String key, PaymentRequest paymentRequest) {
+        String fingerprint = fingerprint(paymentRequest);
+        StoredResponse stored = resolve(key, paymentRequest, fingerprint);
+
+        if (!stored.fingerprint().equals(fingerprint)) {
+            throw new IdempotencyKeyMismatchException(
+                    "Idempotency-Key " + key + " was already used with a different request");
+        }
+        return stored.response();
+    }
+
+    @Scheduled(cron = "${payment.idempotency.purge-cron:0 15 * * * *}")
+    public void purgeExpiredKeys() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(ttl);
+        int purged = paymentShards.onEveryShard(() -> idempotencyKeyRepository.deleteCreatedBefore(cutoff)).stream()
+                .mapToInt(Integer::intValue)
+                .sum();
+        log.debug("Purged {} expired idempotency keys", purged);
+    }
+
+    private StoredResponse resolve(String key, PaymentRequest paymentRequest, String fingerprint) {
+        while (true) {
+            var mine = new CompletableFuture<StoredResponse>();
+            var running = responses.asMap().putIfAbsent(key, mine);
+
+            if (running == null) {
+                try {
+                    StoredResponse stored = loadOrCreate(key, paymentRequest, fingerprint);
+                    mine.complete(stored);
+                    return stored;
+                } catch (RuntimeException e) {
+                    mine.completeExceptionally(e);
+                    throw e;
+                }
+            }
+
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                // the first request failed without storing anything, so this one takes its place
+                responses.asMap().remove(key, running);
+            }
+        }
+    }
+
+    private StoredResponse loadOrCreate(String key, PaymentRequest paymentRequest, String fingerprint) {
+        var existing = findKey(key, paymentRequest);
+        if (existing.isPresent()) {
+            return toStoredResponse(existing.get());
+        }
+
+        // only a request that creates a payment is charged, so retrying one that succeeded always gets its replay
+        paymentRateLimiter.acquire(paymentRequest.getPayerId());
+
+        try {
+            return transactionTemplate.execute(status -> {
+                PaymentResponse response = paymentService.createPayment(paymentRequest);
+                idempotencyKeyRepository.saveAndFlush(IdempotencyKey.builder()
+                        .key(key)
+                        .requestFingerprint(fingerprint)
+                        .paymentId(response.getId())
+                        .response(toJson(response))
+                        .build());
+                return new StoredResponse(fingerprint, response);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // another instance stored the key first and the payment created here was rolled back
+            return findKey(key, paymentRequest).map(this::toStoredResponse).orElseThrow(() -> e);
+        }
+    }
+
+    // a key is stored with its payment, on the payer's shard; it is read from the primary, as a replica lagging
+    // behind would let a duplicate through
+    private Optional<IdempotencyKey> findKey(String key, PaymentRequest paymentRequest) {
+        return paymentShards.onShard(paymentShards.shardOf(paymentRequest.getPayerId()),
+                () -> ReadWriteRoutingDataSource.onPrimary(() -> idempotencyKeyRepository.findById(key)));
+    }
+
+    private StoredResponse toStoredResponse(IdempotencyKey idempotencyKey) {
+        try {
+            return new StoredResponse(idempotencyKey.getRequestFingerprint(),
+                    objectMapper.readValue(idempotencyKey.getResponse(), PaymentResponse.class));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable response stored for key " + idempotencyKey.getKey(), e);
+        }
+    }
+
+    private String toJson(PaymentResponse response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Payment response could not be serialized", e);
+        }
+    }
+
+    static String fingerprint(PaymentRequest paymentRequest) {
+        String canonical = paymentRequest.getPayerId() + "|" + paymentRequest.getPaymentSource() + "|"
+                + paymentRequest.getAmount().stripTrailingZeros().toPlainString();
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record StoredResponse(String fingerprint, PaymentResponse response) {
+    }
+}
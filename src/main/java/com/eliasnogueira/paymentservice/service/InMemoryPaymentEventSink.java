@@ -0,0 +1,41 @@
+package com.eliasnogueira.paymentservice.service;
+
+import com.eliasnogueira.paymentservice.dto.PaymentEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Bounded queue for consumers in the same process. A batch that does not fit is refused as a whole, so the events
+ * stay in the outbox until the consumers catch up.
+ */
+@Component
+@ConditionalOnProperty(name = "payment.outbox.sink", havingValue = "memory", matchIfMissing = true)
+public class InMemoryPaymentEventSink implements PaymentEventSink {
+
+    private final BlockingQueue<PaymentEvent> queue;
+
+    public InMemoryPaymentEventSink(@Value("${payment.outbox.memory.capacity:10000}") int capacity) {
+        this.queue = new LinkedBlockingQueue<>(capacity);
+    }
+
+    // the relay is the only producer, so the free capacity cannot shrink in between
+    @Override
+    public void publish(List<PaymentEvent> events) {
+        if (queue.remainingCapacity() < events.size()) {
+            throw new IllegalStateException("Payment event queue is full");
+        }
+        queue.addAll(events);
+    }
+
+    public List<PaymentEvent> drain(int maxEvents) {
+        List<PaymentEvent> events = new ArrayList<>(Math.min(maxEvents, queue.size()));
+        queue.drainTo(events, maxEvents);
+        return events;
+    }
+}
@@ -0,0 +1,187 @@
+package com.eliasnogueira.paymentservice.service;
+
+import com.eliasnogueira.paymentservice.config.ReadWriteRoutingDataSource;
+import com.eliasnogueira.paymentservice.model.Payment;
+import com.eliasnogueira.paymentservice.repository.JournalRecord;
+import com.eliasnogueira.paymentservice.repository.PaymentJournal;
+import com.eliasnogueira.paymentservice.repository.PaymentRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Rebuilds the {@code payments} table from the {@link PaymentJournal} before the web server takes requests, and writes
+ * the periodic snapshots that keep the replay short. Records are applied in JDBC batches per shard.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "payment.journal.enabled", havingValue = "true")
+public class JournalReplayer implements SmartLifecycle {
+
+    private static final int BATCH_SIZE = 1000;
+    // Payment's pooled sequence hands out the block of ids below the value it reads
+    private static final long SEQUENCE_INCREMENT = 50;
+
+    private static final String INSERT_ROW = "INSERT INTO payments (id, payer_id, payment_source, amount, status, " +
+            "created_at, version) SELECT ?, ?, ?, ?, ?, ?, ? WHERE NOT EXISTS (SELECT 1 FROM payments WHERE id = ?)";
+    private static final String UPDATE_STATUS = "UPDATE payments SET status = ?, version = ? WHERE id = ? AND " +
+            "version < ?";
+    private static final String DELETE = "DELETE FROM payments WHERE id = ?";
+
+    private final PaymentJournal paymentJournal;
+    private final PaymentRepository paymentRepository;
+    private final PaymentShards paymentShards;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnly;
+    private volatile boolean running;
+
+    public JournalReplayer(PaymentJournal paymentJournal, PaymentRepository paymentRepository,
+                           PaymentShards paymentShards, JdbcTemplate jdbcTemplate, EntityManager entityManager,
+                           PlatformTransactionManager transactionManager) {
+        this.paymentJournal = paymentJournal;
+        this.paymentRepository = paymentRepository;
+        this.paymentShards = paymentShards;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    @Override
+    public void start() {
+        List<JournalRecord> batch = new ArrayList<>(BATCH_SIZE);
+        long[] replayed = {0};
+        paymentJournal.open(journalRecord -> {
+            batch.add(journalRecord);
+            if (batch.size() == BATCH_SIZE) {
+                replayed[0] += apply(batch);
+            }
+        });
+        replayed[0] += apply(batch);
+
+        paymentShards.onEveryShard(this::restartSequence);
+        running = true;
+        log.info("Replayed {} journal records", replayed[0]);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // before the web server starts, so no request sees a partial table
+    @Override
+    public int getPhase() {
+        return Integer.MIN_VALUE;
+    }
+
+    /**
+     * Snapshots every shard from the primary, whose rows include every change journaled so far.
+     */
+    @Scheduled(cron = "${payment.journal.snapshot-cron:0 */10 * * * *}")
+    public void snapshot() {
+        if (!running) {
+            return;
+        }
+        paymentJournal.snapshot(writer -> {
+            for (int shard = 0; shard < paymentShards.shardCount(); shard++) {
+                paymentShards.onShard(shard, () -> ReadWriteRoutingDataSource.onPrimary(
+                        () -> readOnly.execute(status -> snapshotShard(writer))));
+            }
+        });
+    }
+
+    private Void snapshotShard(Consumer<Payment> writer) {
+        try (Stream<Payment> payments = paymentRepository.streamForExport(null, null, null, null)) {
+            for (Payment payment : (Iterable<Payment>) payments::iterator) {
+                writer.accept(payment);
+                entityManager.detach(payment);
+            }
+        }
+        return null;
+    }
+
+    // the replayed ids were not drawn from this database's sequence
+    private long restartSequence() {
+        long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM payments", Long.class);
+        jdbcTemplate.execute("ALTER SEQUENCE payments_seq RESTART WITH " + (maxId + SEQUENCE_INCREMENT + 1));
+        return maxId;
+    }
+
+    private int apply(List<JournalRecord> batch) {
+        Map<Integer, List<JournalRecord>> byShard = batch.stream()
+                .collect(Collectors.groupingBy(this::shardOf, TreeMap::new, Collectors.toList()));
+        byShard.forEach((shard, records) -> paymentShards.onShard(shard, () -> applyOnShard(records)));
+        int applied = batch.size();
+        batch.clear();
+        return applied;
+    }
+
+    // a batch holds each payment's records in order, and inserts, status changes and deletes commute across payments
+    private Void applyOnShard(List<JournalRecord> records) {
+        List<Payment> rows = new ArrayList<>();
+        List<JournalRecord.StatusChange> statusChanges = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        for (JournalRecord journalRecord : records) {
+            switch (journalRecord) {
+                case JournalRecord.Row(Payment payment) -> {
+                    rows.add(payment);
+                    statusChanges.add(new JournalRecord.StatusChange(payment.getId(), payment.getStatus(),
+                            payment.getVersion()));
+                }
+                case JournalRecord.StatusChange statusChange -> statusChanges.add(statusChange);
+                case JournalRecord.Deleted(long id) -> deleted.add(id);
+            }
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_ROW, rows, rows.size(), (statement, payment) -> {
+            statement.setLong(1, payment.getId());
+            statement.setObject(2, payment.getPayerId());
+            statement.setString(3, payment.getPaymentSource().name());
+            statement.setBigDecimal(4, payment.getAmount());
+            statement.setString(5, payment.getStatus().name());
+            statement.setTimestamp(6, Timestamp.valueOf(payment.getCreatedAt()));
+            statement.setLong(7, payment.getVersion());
+            statement.setLong(8, payment.getId());
+        });
+        // versions only grow, so replaying an older change or one the row already has is a no-op
+        jdbcTemplate.batchUpdate(UPDATE_STATUS, statusChanges, statusChanges.size(), (statement, change) -> {
+            statement.setString(1, change.status().name());
+            statement.setLong(2, change.version());
+            statement.setLong(3, change.id());
+            statement.setLong(4, change.version());
+        });
+        jdbcTemplate.batchUpdate(DELETE, deleted, deleted.size(),
+                (statement, id) -> statement.setLong(1, id));
+        return null;
+    }
+
+    private int shardOf(JournalRecord journalRecord) {
+        return switch (journalRecord) {
+            case JournalRecord.Row(Payment payment) -> paymentShards.shardOf(payment.getPayerId());
+            case JournalRecord.StatusChange statusChange -> paymentShards.shardOf(statusChange.id());
+            case JournalRecord.Deleted(long id) -> paymentShards.shardOf(id);
+        };
+    }
+}
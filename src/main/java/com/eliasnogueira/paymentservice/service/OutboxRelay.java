@@ -0,0 +1,123 @@
+package com.eliasnogueira.paymentservice.service;
+
+import com.eliasnogueira.paymentservice.mapper.PaymentMapper;
+import com.eliasnogueira.paymentservice.model.OutboxEvent;
+import com.eliasnogueira.paymentservice.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Drains the outbox of every shard to the {@link PaymentEventSink} in batches of {@code payment.outbox.batch-size},
+ * oldest first. A batch is deleted in the transaction that read it, after the sink accepted it, so an event is
+ * published at least once and a failed batch is retried whole. Commits wake the relay on the task executor; the poll
+ * picks up whatever a failure or a restart left behind.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "payment.outbox.enabled", havingValue = "true")
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final PaymentShards paymentShards;
+    private final PaymentEventSink paymentEventSink;
+    private final PaymentMapper paymentMapper;
+    private final int batchSize;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean requested = new AtomicBoolean();
+    private final Timer lag;
+    private final Counter published;
+    private final Counter failures;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       PaymentShards paymentShards,
+                       PaymentEventSink paymentEventSink,
+                       PaymentMapper paymentMapper,
+                       MeterRegistry meterRegistry,
+                       @Value("${payment.outbox.batch-size:500}") int batchSize) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.paymentShards = paymentShards;
+        this.paymentEventSink = paymentEventSink;
+        this.paymentMapper = paymentMapper;
+        this.batchSize = batchSize;
+        this.lag = Timer.builder("payment.outbox.lag")
+                .description("Time from a payment change to the publication of its event")
+                .register(meterRegistry);
+        this.published = Counter.builder("payment.outbox.published")
+                .description("Payment events accepted by the sink")
+                .register(meterRegistry);
+        this.failures = Counter.builder("payment.outbox.failures")
+                .description("Outbox batches the sink refused, to be retried")
+                .register(meterRegistry);
+    }
+
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecorded(PaymentOutbox.Recorded recorded) {
+        relay();
+    }
+
+    /**
+     * Publishes everything in the outbox, returning the number of events published. A call made while another one is
+     * draining makes that one go around again instead of draining concurrently.
+     */
+    @Scheduled(fixedDelayString = "${payment.outbox.poll-interval:5s}")
+    public int relay() {
+        int relayed = 0;
+        requested.set(true);
+        while (requested.get() && draining.compareAndSet(false, true)) {
+            try {
+                requested.set(false);
+                relayed += drain();
+            } finally {
+                draining.set(false);
+            }
+        }
+        return relayed;
+    }
+
+    private int drain() {
+        int relayed = 0;
+        try {
+            for (int shard = 0; shard < paymentShards.shardCount(); shard++) {
+                int batch;
+                do {
+                    batch = paymentShards.inTransaction(shard, this::publishBatch);
+                    relayed += batch;
+                } while (batch == batchSize);
+            }
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.warn("Payment events could not be published, retrying on the next poll: {}", e.getMessage());
+        }
+        return relayed;
+    }
+
+    private int publishBatch() {
+        List<OutboxEvent> events = outboxEventRepository.findOldest(Limit.of(batchSize));
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        paymentEventSink.publish(events.stream().map(paymentMapper::toEvent).toList());
+        outboxEventRepository.deleteAllByIdInBatch(events.stream().map(OutboxEvent::getId).toList());
+
+        LocalDateTime now = LocalDateTime.now();
+        events.forEach(event -> lag.record(Duration.between(event.getOccurredAt(), now)));
+        published.increment(events.size());
+        return events.size();
+    }
+}
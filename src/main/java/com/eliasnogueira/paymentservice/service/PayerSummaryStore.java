@@ -0,0 +1,164 @@
+package com.eliasnogueira.paymentservice.service;
+
+import com.eliasnogueira.paymentservice.dto.PayerSummaryResponse;
+import com.eliasnogueira.paymentservice.dto.PaymentTotals;
+import com.eliasnogueira.paymentservice.model.MinorUnits;
+import com.eliasnogueira.paymentservice.model.enums.PaymentSource;
+import com.eliasnogueira.paymentservice.model.enums.PaymentStatus;
+import com.eliasnogueira.paymentservice.repository.PaymentArchive;
+import com.eliasnogueira.paymentservice.repository.PaymentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Payment count and total per payer, source and status, kept up to date by the writes so a summary never reads the
+ * payer's history. Changes are applied once their transaction commits; the store is rebuilt from the database on
+ * startup.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PayerSummaryStore {
+
+    private static final PaymentSource[] SOURCES = PaymentSource.values();
+    private static final PaymentStatus[] STATUSES = PaymentStatus.values();
+
+    private final PaymentRepository paymentRepository;
+    private final PaymentShards paymentShards;
+    private final PaymentArchive paymentArchive;
+    private volatile ConcurrentMap<UUID, PayerTotals> payers = new ConcurrentHashMap<>();
+
+    /**
+     * Replaces the summaries with ones read from the database and the archive. Changes committed while it runs are
+     * lost, so it runs on startup before the web server takes requests ({@link StartupRebuilder}).
+     */
+    public void rebuild() {
+        ConcurrentMap<UUID, PayerTotals> rebuilt = new ConcurrentHashMap<>();
+        // a payer lives on a single shard, so the rows of different shards never overlap
+        paymentShards.onEveryShard(paymentRepository::aggregateByPayer).stream()
+                .flatMap(List::stream)
+                .forEach(row -> totals(rebuilt, row.getPayerId()).add(row.getPaymentSource(), row.getStatus(),
+                        row.getPaymentCount(), MinorUnits.of(row.getTotal())));
+        paymentArchive.forEach(payment -> totals(rebuilt, payment.getPayerId()).add(payment.getPaymentSource(),
+                payment.getStatus(), 1, MinorUnits.of(payment.getAmount())));
+        payers = rebuilt;
+        log.info("Payer summaries rebuilt for {} payers", rebuilt.size());
+    }
+
+    public void recordCreated(UUID payerId, PaymentSource source, long amount) {
+        afterCommit(() -> totals(payerId).add(source, PaymentStatus.PENDING, 1, amount));
+    }
+
+    public void recordStatusChange(UUID payerId, PaymentSource source, long amount,
+                                   PaymentStatus previous, PaymentStatus current) {
+        if (previous == current) {
+            return;
+        }
+        afterCommit(() -> totals(payerId).move(source, previous, current, amount));
+    }
+
+    public PayerSummaryResponse summary(UUID payerId) {
+        PayerTotals totals = payers.get(payerId);
+        return totals == null ? new PayerTotals().toSummary(payerId) : totals.toSummary(payerId);
+    }
+
+    private PayerTotals totals(UUID payerId) {
+        return totals(payers, payerId);
+    }
+
+    private static PayerTotals totals(ConcurrentMap<UUID, PayerTotals> payers, UUID payerId) {
+        return payers.computeIfAbsent(payerId, id -> new PayerTotals());
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    /**
+     * One cell per source and status; guarded by its own monitor so a status move is never seen half applied.
+     */
+    private static final class PayerTotals {
+
+        private final long[] counts = new long[SOURCES.length * STATUSES.length];
+        private final long[] amounts = new long[SOURCES.length * STATUSES.length];
+
+        synchronized void add(PaymentSource source, PaymentStatus status, long count, long amount) {
+            int cell = cell(source, status);
+            counts[cell] += count;
+            amounts[cell] = Math.addExact(amounts[cell], amount);
+        }
+
+        synchronized void move(PaymentSource source, PaymentStatus from, PaymentStatus to, long amount) {
+            add(source, from, -1, -amount);
+            add(source, to, 1, amount);
+        }
+
+        synchronized PayerSummaryResponse toSummary(UUID payerId) {
+            long[] countBySource = new long[SOURCES.length];
+            long[] amountBySource = new long[SOURCES.length];
+            long[] countByStatus = new long[STATUSES.length];
+            long[] amountByStatus = new long[STATUSES.length];
+
+            for (PaymentSource source : SOURCES) {
+                for (PaymentStatus status : STATUSES) {
+                    int cell = cell(source, status);
+                    countBySource[source.ordinal()] += counts[cell];
+                    amountBySource[source.ordinal()] += amounts[cell];
+                    countByStatus[status.ordinal()] += counts[cell];
+                    amountByStatus[status.ordinal()] += amounts[cell];
+                }
+            }
+
+            var bySource = new EnumMap<PaymentSource, PaymentTotals>(PaymentSource.class);
+            for (PaymentSource source : SOURCES) {
+                bySource.put(source, totals(countBySource[source.ordinal()], amountBySource[source.ordinal()]));
+            }
+            var byStatus = new EnumMap<PaymentStatus, PaymentTotals>(PaymentStatus.class);
+            for (PaymentStatus status : STATUSES) {
+                byStatus.put(status, totals(countByStatus[status.ordinal()], amountByStatus[status.ordinal()]));
+            }
+
+            return PayerSummaryResponse.builder()
+                    .payerId(payerId)
+                    .overall(totals(sum(countBySource), sum(amountBySource)))
+                    .bySource(bySource)
+                    .byStatus(byStatus)
+                    .build();
+        }
+
+        private static int cell(PaymentSource source, PaymentStatus status) {
+            return source.ordinal() * STATUSES.length + status.ordinal();
+        }
+
+        private static PaymentTotals totals(long count, long amount) {
+            return new PaymentTotals(count, MinorUnits.toBigDecimal(amount));
+        }
+
+        private static long sum(long[] values) {
+            long sum = 0;
+            for (long value : values) {
+                sum += value;
+            }
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.eliasnogueira.paymentservice.service;
+
+import com.eliasnogueira.paymentservice.model.Payment;
+import com.eliasnogueira.paymentservice.repository.ArchiveSegment;
+import com.eliasnogueira.paymentservice.repository.PaymentArchive;
+import com.eliasnogueira.paymentservice.repository.PaymentJournal;
+import com.eliasnogueira.paymentservice.repository.PaymentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves settled payments older than {@code payment.archive.max-age} from the {@code payments} table to the
+ * {@link PaymentArchive}, one segment per transaction: the rows are locked, written to the segment and deleted, and the
+ * segment is dropped again if the transaction rolls back.
+ */
+@Slf4j
+@Service
+public class PaymentArchiver {
+
+    private final PaymentRepository paymentRepository;
+    private final PaymentArchive paymentArchive;
+    private final PaymentShards paymentShards;
+    private final PaymentJournal paymentJournal;
+    private final Duration maxAge;
+    private final int segmentSize;
+
+    public PaymentArchiver(PaymentRepository paymentRepository,
+                           PaymentArchive paymentArchive,
+                           PaymentShards paymentShards,
+                           PaymentJournal paymentJournal,
+                           @Value("${payment.archive.max-age:90d}") Duration maxAge,
+                           @Value("${payment.archive.segment-size:10000}") int segmentSize) {
+        this.paymentRepository = paymentRepository;
+        this.paymentArchive = paymentArchive;
+        this.paymentShards = paymentShards;
+        this.paymentJournal = paymentJournal;
+        this.maxAge = maxAge;
+        this.segmentSize = segmentSize;
+    }
+
+    @Scheduled(cron = "${payment.archive.cron:0 30 3 * * *}")
+    public int archive() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(maxAge);
+        int archived = 0;
+        for (int shard = 0; shard < paymentShards.shardCount(); shard++) {
+            int moved;
+            do {
+                moved = paymentShards.inTransaction(shard, () -> archiveSegment(cutoff));
+                archived += moved;
+            } while (moved == segmentSize);
+        }
+        log.info("Archived {} payments created before {}", archived, cutoff);
+        return archived;
+    }
+
+    /**
+     * A crash between writing the newest segment and committing its delete leaves its rows in both places. They are
+     * still in the table in that case, so the segment is dropped on startup, before anything reads the archive
+     * ({@link StartupRebuilder}).
+     */
+    public void recover() {
+        paymentArchive.newestSegment().ifPresent(segment -> {
+            long id = segment.firstId();
+            if (paymentShards.onShard(paymentShards.shardOf(id), () -> paymentRepository.existsById(id))) {
+                log.warn("Dropping archive segment {}, its delete was never committed", segment.path());
+                paymentArchive.drop(segment);
+            }
+        });
+    }
+
+    private int archiveSegment(LocalDateTime cutoff) {
+        List<Payment> payments = paymentRepository.findArchivable(cutoff, Limit.of(segmentSize));
+        if (payments.isEmpty()) {
+            return 0;
+        }
+
+        ArchiveSegment segment = paymentArchive.append(payments);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    paymentArchive.drop(segment);
+                }
+            }
+        });
+        List<Long> ids = payments.stream().map(Payment::getId).toList();
+        paymentRepository.deleteAllByIdInBatch(ids);
+        paymentJournal.recordDeleted(ids);
+        return payments.size();
+    }
+}
@@ -0,0 +1,85 @@
+package com.eliasnogueira.paymentservice.service;
+
+import com.eliasnogueira.paymentservice.dto.PaymentResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Size-bounded (W-TinyLFU) cache of payment responses by ID. Writes are published only after the transaction commits:
+ * a load that raced the update either finishes before the put, or blocks it, so the committed value always wins, and a
+ * put never replaces a newer version.
+ */
+@Component
+public class PaymentCache implements MeterBinder {
+
+    private final Cache<Long, PaymentResponse> payments;
+
+    public PaymentCache(@Value("${payment.cache.maximum-size:10000}") long maximumSize,
+                        @Value("${payment.cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        // maintenance on the calling thread keeps the bound exact, so a maximum size of 0 disables the cache
+        this.payments = Caffeine.newBuilder()
+                .executor(Runnable::run)
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    public PaymentResponse get(Long paymentId, Function<Long, PaymentResponse> loader) {
+        return payments.get(paymentId, loader);
+    }
+
+    public Optional<PaymentResponse> getIfPresent(Long paymentId) {
+        return Optional.ofNullable(payments.getIfPresent(paymentId));
+    }
+
+    public void putAfterCommit(PaymentResponse payment) {
+        putAfterCommit(List.of(payment));
+    }
+
+    public void putAfterCommit(List<PaymentResponse> updated) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            updated.forEach(this::put);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                updated.forEach(PaymentCache.this::put);
+            }
+        });
+    }
+
+    // after-commit callbacks of two updates to the same payment run in any order, so the older one must not win
+    private void put(PaymentResponse payment) {
+        payments.asMap().merge(payment.getId(), payment,
+                (cached, updated) -> updated.getVersion() >= cached.getVersion() ? updated : cached);
+    }
+
+    public void invalidate(Long paymentId) {
+        payments.invalidate(paymentId);
+    }
+
+    public CacheStats stats() {
+        return payments.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, payments, "payments");
+    }
+}
@@ -0,0 +1,17 @@
+package com.eliasnogueira.paymentservice.service;
+
+import com.eliasnogueira.paymentservice.dto.PaymentEvent;
+
+import java.util.List;
+
+/**
+ * Destination of the events relayed from the outbox, chosen with {@code payment.outbox.sink}.
+ */
+public interface PaymentEventSink {
+
+    /**
+     * Publishes the events in order. Throwing leaves all of them in the outbox to be published again, including the
+     * ones that did get through.
+     */
+    void publish(List<PaymentEvent> events);
+}
@@ -0,0 +1,133 @@
+package com.eliasnogueira.paymentservice.service;
+
+import com.eliasnogueira.paymentservice.dto.ExportFormat;
+import com.eliasnogueira.paymentservice.dto.PaymentExportFilter;
+import com.eliasnogueira.paymentservice.dto.PaymentExportRow;
+import com.eliasnogueira.paymentservice.mapper.PaymentMapper;
+import com.eliasnogueira.paymentservice.model.Payment;
+import com.eliasnogueira.paymentservice.repository.PaymentArchive;
+import com.eliasnogueira.paymentservice.repository.PaymentRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+/**
+ * Streams payments straight from a JDBC cursor to the response. Each row is written and detached from the persistence
+ * context before the next one is fetched, so memory stays constant whatever the number of rows. Shards are exported one
+ * after the other, each in its own read-only transaction, followed by the archived payments.
+ */
+@Slf4j
+@Service
+public class PaymentExportService {
+
+    private static final int FLUSH_EVERY_ROWS = 500;
+    private static final String CSV_HEADER = "id,payerId,paymentSource,amount,status,createdAt,version";
+
+    private final PaymentRepository paymentRepository;
+    private final PaymentShards paymentShards;
+    private final PaymentArchive paymentArchive;
+    private final TransactionTemplate readOnly;
+    private final PaymentMapper paymentMapper;
+    private final EntityManager entityManager;
+    private final ObjectWriter jsonWriter;
+
+    public PaymentExportService(PaymentRepository paymentRepository, PaymentShards paymentShards,
+                                PaymentArchive paymentArchive, PlatformTransactionManager transactionManager,
+                                PaymentMapper paymentMapper, EntityManager entityManager, ObjectMapper objectMapper) {
+        this.paymentRepository = paymentRepository;
+        this.paymentShards = paymentShards;
+        this.paymentArchive = paymentArchive;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.paymentMapper = paymentMapper;
+        this.entityManager = entityManager;
+        this.jsonWriter = objectMapper.writerFor(PaymentExportRow.class);
+    }
+
+    public void export(PaymentExportFilter filter, ExportFormat format, OutputStream outputStream) throws IOException {
+        var writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        long rows = 0;
+        try {
+            for (int shard = 0; shard < paymentShards.shardCount(); shard++) {
+                long exported = rows;
+                rows = paymentShards.onShard(shard,
+                        () -> readOnly.execute(status -> exportShard(filter, format, writer, exported)));
+            }
+            rows += exportArchive(filter, format, writer);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        log.info("Exported {} payments as {}", rows, format);
+    }
+
+    private long exportShard(PaymentExportFilter filter, ExportFormat format, Writer writer, long exported) {
+        long rows = exported;
+        try (Stream<Payment> payments = paymentRepository.streamForExport(filter.getFrom(), filter.getTo(),
+                filter.getStatus(), filter.getPaymentSource())) {
+            for (Payment payment : (Iterable<Payment>) payments::iterator) {
+                writeRow(writer, format, paymentMapper.toExportRow(payment));
+                entityManager.detach(payment);
+
+                // the first flush lets the client start reading before the query has finished
+                if (++rows == 1 || rows % FLUSH_EVERY_ROWS == 0) {
+                    writer.flush();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return rows;
+    }
+
+    private long exportArchive(PaymentExportFilter filter, ExportFormat format, Writer writer) {
+        long[] rows = new long[1];
+        paymentArchive.forEach(payment -> {
+            if (matches(filter, payment)) {
+                try {
+                    writeRow(writer, format, paymentMapper.toExportRow(payment));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows[0]++;
+            }
+        });
+        return rows[0];
+    }
+
+    private static boolean matches(PaymentExportFilter filter, Payment payment) {
+        return (filter.getFrom() == null || !payment.getCreatedAt().isBefore(filter.getFrom()))
+                && (filter.getTo() == null || payment.getCreatedAt().isBefore(filter.getTo()))
+                && (filter.getStatus() == null || filter.getStatus() == payment.getStatus())
+                && (filter.getPaymentSource() == null || filter.getPaymentSource() == payment.getPaymentSource());
+    }
+
+    private void writeRow(Writer writer, ExportFormat format, PaymentExportRow payment) throws IOException {
+        if (format == ExportFormat.CSV) {
+            writer.write(payment.getId() + "," + payment.getPayerId() + "," + payment.getPaymentSource() + ","
+                    + payment.getAmount().toPlainString() + "," + payment.getStatus() + "," + payment.getCreatedAt()
+                    + "," + payment.getVersion());
+        } else {
+            writer.write(jsonWriter.writeValueAsString(payment));
+        }
+        writer.write('\n');
+    }
+}
@@ -0,0 +1,102 @@
+package com.eliasnogueira.paymentservice.service;
+
+import com.eliasnogueira.paymentservice.model.enums.PaymentSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters of the payment hot path, registered once so recording is a plain timer or counter update. The
+ * {@code commit} stage covers the flush, which is where the INSERT of a new payment is sent.
+ */
+@Component
+public class PaymentMetrics {
+
+    private final Timer limitCheck;
+    private final Timer persist;
+    private final Timer commit;
+    private final Timer mapping;
+    private final Map<PaymentSource, Counter> limitRejections = new EnumMap<>(PaymentSource.class);
+    private final Counter notFound;
+    private final Counter validationErrors;
+
+    public PaymentMetrics(MeterRegistry meterRegistry) {
+        this.limitCheck = stage(meterRegistry, "limit_check");
+        this.persist = stage(meterRegistry, "persist");
+        this.commit = stage(meterRegistry, "commit");
+        this.mapping = stage(meterRegistry, "mapping");
+        for (PaymentSource source : PaymentSource.values()) {
+            limitRejections.put(source, Counter.builder("payment.limit.rejections")
+                    .description("Payments rejected by the daily limit")
+                    .tag("source", source.name())
+                    .register(meterRegistry));
+        }
+        this.notFound = error(meterRegistry, "not_found");
+        this.validationErrors = error(meterRegistry, "validation");
+    }
+
+    public Timer limitCheck() {
+        return limitCheck;
+    }
+
+    public Timer persist() {
+        return persist;
+    }
+
+    public Timer mapping() {
+        return mapping;
+    }
+
+    public void limitRejected(PaymentSource source) {
+        limitRejections.get(source).increment();
+    }
+
+    public void notFound() {
+        notFound.increment();
+    }
+
+    public void validationError() {
+        validationErrors.increment();
+    }
+
+    public void timeCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private long start;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                start = System.nanoTime();
+            }
+
+            @Override
+            public void afterCommit() {
+                commit.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+
+    private static Timer stage(MeterRegistry meterRegistry, String stage) {
+        return Timer.builder("payment.create.stage")
+                .description("Time spent in each stage of creating a payment")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    private static Counter error(MeterRegistry meterRegistry, String type) {
+        return Counter.builder("payment.errors")
+                .description("Requests answered with a client error")
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,55 @@
+package com.eliasnogueira.paymentservice.service;
+
+import com.eliasnogueira.paymentservice.mapper.PaymentMapper;
+import com.eliasnogueira.paymentservice.model.Payment;
+import com.eliasnogueira.paymentservice.repository.OutboxEventRepository;
+import com.eliasnogueira.paymentservice.repository.PaymentRow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Writes payment events to the {@code payment_outbox} table in the transaction of the change, so an event exists if
+ * and only if its change committed, and wakes the {@link OutboxRelay} once that transaction commits. Nothing is
+ * written unless {@code payment.outbox.enabled} is set.
+ */
+@Component
+public class PaymentOutbox {
+
+    private final boolean enabled;
+    private final OutboxEventRepository outboxEventRepository;
+    private final PaymentMapper paymentMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public PaymentOutbox(@Value("${payment.outbox.enabled:false}") boolean enabled,
+                         OutboxEventRepository outboxEventRepository,
+                         PaymentMapper paymentMapper,
+                         ApplicationEventPublisher eventPublisher) {
+        this.enabled = enabled;
+        this.outboxEventRepository = outboxEventRepository;
+        this.paymentMapper = paymentMapper;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public void recordCreated(List<Payment> payments) {
+        if (enabled && !payments.isEmpty()) {
+            outboxEventRepository.saveAll(payments.stream().map(paymentMapper::toCreatedEvent).toList());
+            eventPublisher.publishEvent(new Recorded());
+        }
+    }
+
+    public void recordStatusChange(PaymentRow row) {
+        if (enabled) {
+            outboxEventRepository.save(paymentMapper.toStatusChangedEvent(row));
+            eventPublisher.publishEvent(new Recorded());
+        }
+    }
+
+    /**
+     * Published when events were written, for the relay to pick up after the commit.
+     */
+    public record Recorded() {
+    }
+}
@@ -0,0 +1,116 @@
+package com.eliasnogueira.paymentservice.service;
+
+import com.eliasnogueira.paymentservice.exceptions.BatchTooLargeException;
+import com.eliasnogueira.paymentservice.exceptions.RateLimitExceededException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Per-payer and global {@link TokenBucket}s checked before a payment reaches the service, so a rejected request never
+ * opens a transaction. A request with an Idempotency-Key is checked by the {@link IdempotencyService} once it knows the
+ * key has no stored response. A payer's bucket is checked first, so a payer over its own rate does not drain the
+ * global one, and a rejection gives back whatever the request already took. Buckets idle for longer than a full
+ * refill are evicted: they are full by then and indistinguishable from a new one.
+ */
+@Component
+public class PaymentRateLimiter {
+
+    private final boolean enabled;
+    private final int payerRate;
+    private final int payerBurst;
+    private final TokenBucket global;
+    private final Cache<UUID, TokenBucket> payers;
+    private final Counter payerRejections;
+    private final Counter globalRejections;
+
+    public PaymentRateLimiter(@Value("${payment.rate-limit.enabled:true}") boolean enabled,
+                              @Value("${payment.rate-limit.payer.permits-per-second:20}") int payerRate,
+                              @Value("${payment.rate-limit.payer.burst:40}") int payerBurst,
+                              @Value("${payment.rate-limit.payer.max-payers:1000000}") long maxPayers,
+                              @Value("${payment.rate-limit.global.permits-per-second:5000}") int globalRate,
+                              @Value("${payment.rate-limit.global.burst:10000}") int globalBurst,
+                              MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.payerRate = payerRate;
+        this.payerBurst = payerBurst;
+        this.global = new TokenBucket(globalRate, globalBurst);
+        this.payers = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofNanos(Math.max(1_000_000_000L * payerBurst / payerRate, 1_000_000_000L)))
+                .maximumSize(maxPayers)
+                .build();
+        this.payerRejections = rejections(meterRegistry, "payer");
+        this.globalRejections = rejections(meterRegistry, "global");
+    }
+
+    public void acquire(UUID payerId) {
+        if (enabled) {
+            acquire(Map.of(payerId, 1), 1);
+        }
+    }
+
+    /**
+     * Takes one token per payment of a batch from each payer's bucket and from the global one, all or nothing: a
+     * rejection gives back what the batch already took. A bucket never holds more than its burst, so a batch with more
+     * payments for one payer, or overall, is a validation error rather than a 429 no retry would clear.
+     */
+    public void acquire(List<UUID> payerIds) {
+        if (!enabled) {
+            return;
+        }
+        Map<UUID, Integer> payments = new LinkedHashMap<>();
+        payerIds.forEach(payerId -> payments.merge(payerId, 1, Integer::sum));
+        payments.forEach((payerId, count) -> {
+            if (count > payerBurst) {
+                throw new BatchTooLargeException("At most " + payerBurst + " payments per payer are accepted in one "
+                        + "batch, got " + count + " for payer " + payerId);
+            }
+        });
+        if (payerIds.size() > global.burst()) {
+            throw new BatchTooLargeException("At most " + global.burst() + " payments are accepted in one batch, got "
+                    + payerIds.size());
+        }
+        acquire(payments, payerIds.size());
+    }
+
+    private void acquire(Map<UUID, Integer> payments, int total) {
+        long now = System.nanoTime();
+        Map<TokenBucket, Integer> taken = new LinkedHashMap<>();
+        try {
+            payments.forEach((payerId, count) -> {
+                TokenBucket bucket = payers.get(payerId, id -> new TokenBucket(payerRate, payerBurst));
+                long wait = bucket.tryAcquire(count, now);
+                if (wait > 0) {
+                    payerRejections.increment();
+                    throw new RateLimitExceededException("Too many payments for payer: " + payerId,
+                            Duration.ofNanos(wait));
+                }
+                taken.put(bucket, count);
+            });
+            long wait = global.tryAcquire(total, now);
+            if (wait > 0) {
+                globalRejections.increment();
+                throw new RateLimitExceededException("Too many payments, try again later", Duration.ofNanos(wait));
+            }
+        } catch (RateLimitExceededException e) {
+            taken.forEach(TokenBucket::release);
+            throw e;
+        }
+    }
+
+    private static Counter rejections(MeterRegistry meterRegistry, String scope) {
+        return Counter.builder("payment.rate.limit.rejections")
+                .description("Payment requests rejected by the rate limiter")
+                .tag("scope", scope)
+                .register(meterRegistry);
+    }
+}
@@ -1,100 +1,311 @@
 package com.eliasnogueira.paymentservice.service;
 
+import com.eliasnogueira.paymentservice.config.ReadWriteRoutingDataSource;
+import com.eliasnogueira.paymentservice.dto.PayerSummaryResponse;
+import com.eliasnogueira.paymentservice.dto.PaymentBatchItemResult;
+import com.eliasnogueira.paymentservice.dto.PaymentBatchResponse;
+import com.eliasnogueira.paymentservice.dto.PaymentPage;
 import com.eliasnogueira.paymentservice.dto.PaymentRequest;
 import com.eliasnogueira.paymentservice.dto.PaymentResponse;
 import com.eliasnogueira.paymentservice.dto.PaymentUpdateRequest;
+import com.eliasnogueira.paymentservice.exceptions.InvalidPageRequestException;
+import com.eliasnogueira.paymentservice.exceptions.PaymentConflictException;
 import com.eliasnogueira.paymentservice.exceptions.PaymentLimitException;
 import com.eliasnogueira.paymentservice.exceptions.PaymentNotFoundException;
+import com.eliasnogueira.paymentservice.mapper.PaymentMapper;
+import com.eliasnogueira.paymentservice.model.MinorUnits;
 import com.eliasnogueira.paymentservice.model.Payment;
 import com.eliasnogueira.paymentservice.model.enums.PaymentStatus;
+import com.eliasnogueira.paymentservice.repository.PaymentArchive;
+import com.eliasnogueira.paymentservice.repository.PaymentJournal;
 import com.eliasnogueira.paymentservice.repository.PaymentRepository;
-import com.eliasnogueira.paymentservice.validator.PaymentLimitValidator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class PaymentService {
 
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private static final Base64.Encoder CURSOR_ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder CURSOR_DECODER = Base64.getUrlDecoder();
+
     private final PaymentRepository paymentRepository;
+    private final DailyTotalLedger dailyTotalLedger;
+    private final PaymentMapper paymentMapper;
+    private final PaymentCache paymentCache;
+    private final PaymentMetrics paymentMetrics;
+    private final PayerSummaryStore payerSummaryStore;
+    private final PaymentShards paymentShards;
+    private final PaymentArchive paymentArchive;
+    private final PaymentJournal paymentJournal;
+    private final PaymentOutbox paymentOutbox;
 
     @Transactional
     public PaymentResponse createPayment(PaymentRequest paymentRequest) {
-        checkDailyLimit(paymentRequest);
-
-        var payment = Payment.builder()
-                .payerId(paymentRequest.getPayerId())
-                .paymentSource(paymentRequest.getPaymentSource())
-                .amount(paymentRequest.getAmount())
-                .status(PaymentStatus.PENDING)
-                .build();
+        paymentShards.bind(paymentShards.shardOf(paymentRequest.getPayerId()));
+        paymentMetrics.limitCheck().record(() -> checkDailyLimit(paymentRequest));
 
-        var savedPayment = paymentRepository.save(payment);
+        var savedPayment = paymentMetrics.persist().record(() -> paymentRepository.save(newPayment(paymentRequest)));
+        paymentMetrics.timeCommit();
+        paymentJournal.recordCreated(List.of(savedPayment));
+        paymentOutbox.recordCreated(List.of(savedPayment));
+        payerSummaryStore.recordCreated(savedPayment.getPayerId(), savedPayment.getPaymentSource(),
+                MinorUnits.of(savedPayment.getAmount()));
         log.info("Payment created with ID: {}", savedPayment.getId());
 
-        return new ModelMapper().map(savedPayment, PaymentResponse.class);
+        var response = paymentMetrics.mapping().record(() -> paymentMapper.toResponse(savedPayment));
+        paymentCache.putAfterCommit(response);
+        return response;
+    }
+
+    /**
+     * Creates every payment of the batch that fits the payer's daily limit, considering the earlier payments of the
+     * same batch. The inserts are sent as JDBC batches when the transaction commits; a sharded batch commits one
+     * transaction per shard.
+     */
+    public PaymentBatchResponse createPayments(List<PaymentRequest> paymentRequests) {
+        var results = new PaymentBatchItemResult[paymentRequests.size()];
+
+        // reserving in lock stripe order keeps concurrent batches from deadlocking in the database limit modes
+        var byShard = IntStream.range(0, paymentRequests.size()).boxed()
+                .sorted(Comparator.comparingInt(i -> dailyTotalLedger.lockOrder(paymentRequests.get(i).getPayerId())))
+                .collect(Collectors.groupingBy(i -> paymentShards.shardOf(paymentRequests.get(i).getPayerId()),
+                        TreeMap::new, Collectors.toList()));
+
+        int created = 0;
+        for (var shard : byShard.entrySet()) {
+            created += paymentShards.inTransaction(shard.getKey(),
+                    () -> createOnShard(paymentRequests, shard.getValue(), results));
+        }
+        log.info("Payment batch processed: {} created, {} rejected", created, results.length - created);
+
+        return new PaymentBatchResponse(created, results.length - created, Arrays.asList(results));
+    }
+
+    private int createOnShard(List<PaymentRequest> paymentRequests, List<Integer> order,
+                              PaymentBatchItemResult[] results) {
+        LocalDate today = LocalDate.now();
+        int created = 0;
+        List<Payment> savedPayments = new ArrayList<>();
+        List<PaymentResponse> createdPayments = new ArrayList<>();
+        for (int index : order) {
+            var paymentRequest = paymentRequests.get(index);
+            long amount = MinorUnits.of(paymentRequest.getAmount());
+
+            if (dailyTotalLedger.reserve(paymentRequest.getPayerId(), today, amount)) {
+                savedPayments.add(paymentRepository.save(newPayment(paymentRequest)));
+                var savedPayment = paymentMapper.toResponse(savedPayments.getLast());
+                results[index] = PaymentBatchItemResult.builder().index(index)
+                        .status(PaymentBatchItemResult.Status.CREATED)
+                        .payment(savedPayment).build();
+                createdPayments.add(savedPayment);
+                payerSummaryStore.recordCreated(paymentRequest.getPayerId(), paymentRequest.getPaymentSource(), amount);
+                created++;
+            } else {
+                paymentMetrics.limitRejected(paymentRequest.getPaymentSource());
+                results[index] = PaymentBatchItemResult.builder().index(index)
+                        .status(PaymentBatchItemResult.Status.REJECTED)
+                        .error(limitExceededMessage(paymentRequest)).build();
+            }
+        }
+        paymentJournal.recordCreated(savedPayments);
+        paymentOutbox.recordCreated(savedPayments);
+        paymentCache.putAfterCommit(createdPayments);
+        return created;
     }
 
     @Transactional
     public PaymentResponse updatePayment(Long paymentId, PaymentUpdateRequest updateRequest) {
-        var payment = paymentRepository.findById(paymentId)
-                .orElseThrow(() -> new PaymentNotFoundException("Payment not found with ID: " + paymentId));
-
         var newStatus = updateRequest.getStatus();
+        var expectedVersion = updateRequest.getVersion();
+        paymentShards.bind(paymentShards.shardOf(paymentId));
 
-        payment.setStatus(newStatus);
-        var updatedPayment = paymentRepository.save(payment);
+        var updatedPayment = paymentRepository.changeStatus(paymentId, newStatus, expectedVersion)
+                .orElseThrow(() -> updateFailure(paymentId, expectedVersion));
+        paymentJournal.recordStatusChange(paymentId, newStatus, updatedPayment.getVersion());
+        paymentOutbox.recordStatusChange(updatedPayment);
+        payerSummaryStore.recordStatusChange(updatedPayment.getPayerId(), updatedPayment.getPaymentSource(),
+                MinorUnits.of(updatedPayment.getAmount()), updatedPayment.getPreviousStatus(), newStatus);
         log.info("Payment updated with ID: {}, new status: {}", paymentId, newStatus);
 
-        return new ModelMapper().map(updatedPayment, PaymentResponse.class);
+        var response = paymentMapper.toResponse(updatedPayment);
+        paymentCache.putAfterCommit(response);
+        return response;
     }
 
     public PaymentResponse getPaymentById(Long paymentId) {
-        var payment = paymentRepository.findById(paymentId)
+        // loaded from the primary: a lagging replica's row would otherwise stay cached until it expires, long after
+        // the replica caught up, and the cache keeps these reads off the primary anyway
+        return paymentCache.get(paymentId, id -> paymentShards.onShard(paymentShards.shardOf(id),
+                () -> ReadWriteRoutingDataSource.onPrimary(() -> paymentRepository.findResponseById(id)))
+                .or(() -> paymentArchive.findById(id).map(paymentMapper::toResponse))
+                .orElseThrow(() -> new PaymentNotFoundException("Payment not found with ID: " + id)));
+    }
+
+    /**
+     * Version of a payment, read from the cache or as a single column, so revalidating an unchanged payment loads
+     * nothing else.
+     */
+    public long getPaymentVersion(Long paymentId) {
+        return paymentCache.getIfPresent(paymentId).map(PaymentResponse::getVersion)
+                .or(() -> paymentShards.onShard(paymentShards.shardOf(paymentId),
+                        () -> paymentRepository.findVersionById(paymentId)
+                                .or(() -> ReadWriteRoutingDataSource.onPrimary(
+                                        () -> paymentRepository.findVersionById(paymentId)))))
+                .or(() -> paymentArchive.findById(paymentId).map(Payment::getVersion))
                 .orElseThrow(() -> new PaymentNotFoundException("Payment not found with ID: " + paymentId));
-        return new ModelMapper().map(payment, PaymentResponse.class);
     }
 
-    public List<PaymentResponse> getAllPayments() {
-        return paymentRepository.findAll().stream()
-                .map(payment -> new ModelMapper().map(payment, PaymentResponse.class))
-                .collect(Collectors.toList());
+    /**
+     * Every shard returns its first rows after the cursor and the page is cut from their merge, ids being unique
+     * across shards.
+     */
+    public PaymentPage getAllPayments(String cursor, int limit) {
+        if (limit < 1) {
+            throw new InvalidPageRequestException("Limit must be greater than zero");
+        }
+
+        int pageSize = Math.min(limit, MAX_PAGE_SIZE);
+        long afterId = cursor == null ? Long.MIN_VALUE : decodeCursor(cursor);
+
+        // one extra row tells whether there is a next page without a COUNT query
+        var payments = paymentShards.onEveryShard(
+                        () -> paymentRepository.findResponsesAfterId(afterId, Limit.of(pageSize + 1))).stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparing(PaymentResponse::getId))
+                .limit(pageSize + 1L)
+                .toList();
+        boolean hasNext = payments.size() > pageSize;
+        var items = hasNext ? payments.subList(0, pageSize) : payments;
+
+        String nextCursor = hasNext ? encodeCursor(items.getLast().getId()) : null;
+        return new PaymentPage(items, nextCursor);
+    }
+
+    /**
+     * Changes whenever the list returned by {@link #getPaymentsByPayerId} can change. Read it before the list, from the
+     * same shard and replica, so the list is never older than its revision; a new archive segment changes every
+     * payer's revision, which also tells a payer with only archived payments apart from one without any.
+     */
+    public String getPayerRevision(UUID payerId) {
+        var revision = paymentShards.onShard(paymentShards.shardOf(payerId),
+                () -> paymentRepository.findRevisionByPayerId(payerId));
+        return payerRevision(revision.getPaymentCount(), revision.getVersionTotal(), revision.getLastId(),
+                paymentArchive.newestSequence());
     }
 
     public List<PaymentResponse> getPaymentsByPayerId(UUID payerId) {
-        return paymentRepository.findAllByPayerId(payerId).stream()
-                .map(payment -> new ModelMapper().map(payment, PaymentResponse.class))
-                .collect(Collectors.toList());
+        return getPayerPayments(payerId).payments();
     }
 
-    private void checkDailyLimit(PaymentRequest paymentRequest) {
-        LocalDate today = LocalDate.now();
-        LocalDateTime startOfDay = today.atStartOfDay();
-        LocalDateTime endOfDay = today.plusDays(1).atStartOfDay();
+    /**
+     * The payer's payments with the revision {@link #getPayerRevision} would have returned for them, worked out from
+     * the rows just loaded instead of a second query.
+     */
+    public PayerPayments getPayerPayments(UUID payerId) {
+        // read before the rows for the same reason the revision is read before the list
+        long archiveSequence = paymentArchive.newestSequence();
+        var payments = paymentShards.onShard(paymentShards.shardOf(payerId),
+                () -> paymentRepository.findResponsesByPayerId(payerId));
+        String revision = payerRevision(payments.size(),
+                payments.stream().mapToLong(PaymentResponse::getVersion).sum(),
+                payments.stream().mapToLong(PaymentResponse::getId).max().orElse(0), archiveSequence);
+
+        var archived = paymentArchive.findByPayerId(payerId);
+        if (archived.isEmpty()) {
+            return new PayerPayments(payments, revision);
+        }
 
-        BigDecimal dailyTotal = paymentRepository
-                .sumPaymentsByPayerIdAndDate(paymentRequest.getPayerId(), startOfDay, endOfDay);
+        // the table wins over the archive for a payment whose archiving has not committed yet
+        Set<Long> hot = payments.stream().map(PaymentResponse::getId).collect(Collectors.toSet());
+        return new PayerPayments(Stream.concat(payments.stream(), archived.stream()
+                        .filter(payment -> !hot.contains(payment.getId()))
+                        .map(paymentMapper::toResponse))
+                .sorted(Comparator.comparing(PaymentResponse::getId))
+                .toList(), revision);
+    }
+
+    public PayerSummaryResponse getPayerSummary(UUID payerId) {
+        return payerSummaryStore.summary(payerId);
+    }
 
-        if (dailyTotal == null) {
-            dailyTotal = BigDecimal.ZERO;
+    private static String payerRevision(long paymentCount, long versionTotal, long lastId, long archiveSequence) {
+        return paymentCount + "-" + versionTotal + "-" + lastId + "-" + archiveSequence;
+    }
+
+    private static String encodeCursor(long id) {
+        return CURSOR_ENCODER.encodeToString(ByteBuffer.allocate(Long.BYTES).putLong(id).array());
+    }
+
+    private static long decodeCursor(String cursor) {
+        try {
+            byte[] bytes = CURSOR_DECODER.decode(cursor);
+            if (bytes.length != Long.BYTES) {
+                throw new InvalidPageRequestException("Invalid cursor: " + cursor);
+            }
+            return ByteBuffer.wrap(bytes).getLong();
+        } catch (IllegalArgumentException e) {
+            throw new InvalidPageRequestException("Invalid cursor: " + cursor);
         }
+    }
 
-        BigDecimal novoTotal = dailyTotal.add(paymentRequest.getAmount());
+    // only reached when nothing was updated, so the happy path stays a single statement
+    private RuntimeException updateFailure(Long paymentId, Long expectedVersion) {
+        if (expectedVersion != null && paymentRepository.existsById(paymentId)) {
+            // the cached copy may be the stale version the client read
+            paymentCache.invalidate(paymentId);
+            return new PaymentConflictException("Payment with ID: " + paymentId
+                    + " was modified concurrently, expected version: " + expectedVersion);
+        }
+        if (paymentArchive.findById(paymentId).isPresent()) {
+            return new PaymentConflictException("Payment with ID: " + paymentId
+                    + " is archived and can no longer be updated");
+        }
+        return new PaymentNotFoundException("Payment not found with ID: " + paymentId);
+    }
 
-        if (!PaymentLimitValidator.isWithinLimit(novoTotal)) {
-            throw new PaymentLimitException("Daily payment limit exceeded for source: "
-                    + paymentRequest.getPaymentSource());
+    private static Payment newPayment(PaymentRequest paymentRequest) {
+        return Payment.builder()
+                .payerId(paymentRequest.getPayerId())
+                .paymentSource(paymentRequest.getPaymentSource())
+                .amount(paymentRequest.getAmount())
+                .status(PaymentStatus.PENDING)
+                .build();
+    }
+
+    private void checkDailyLimit(PaymentRequest paymentRequest) {
+        LocalDate today = LocalDate.now();
+
+        if (!dailyTotalLedger.reserve(paymentRequest.getPayerId(), today, MinorUnits.of(paymentRequest.getAmount()))) {
+            paymentMetrics.limitRejected(paymentRequest.getPaymentSource());
+            throw new PaymentLimitException(limitExceededMessage(paymentRequest));
         }
     }
-}
\ No newline at end of file
+
+    private static String limitExceededMessage(PaymentRequest paymentRequest) {
+        return "Daily payment limit exceeded for source: " + paymentRequest.getPaymentSource();
+    }
+
+    public record PayerPayments(List<PaymentResponse> payments, String revision) {
+    }
+}
@@ -0,0 +1,107 @@
+package com.eliasnogueira.paymentservice.service;
+
+import com.eliasnogueira.paymentservice.config.ShardRoutingDataSource;
+import com.eliasnogueira.paymentservice.config.ShardingProperties;
+import com.eliasnogueira.paymentservice.model.id.ShardedIds;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Routes payment work to the shard of its payer or payment id, see {@link ShardedIds}. Work spanning every shard runs
+ * one task per shard on the application task executor, which follows {@code spring.threads.virtual.enabled} and is
+ * bounded by the connection pool. Without sharding there is a single shard and everything runs in place.
+ */
+@Component
+public class PaymentShards {
+
+    private final int shardCount;
+    private final TransactionTemplate transactionTemplate;
+    private final AsyncTaskExecutor scatter;
+
+    public PaymentShards(ShardingProperties sharding, TransactionTemplate transactionTemplate,
+                         @Qualifier("applicationTaskExecutor") AsyncTaskExecutor scatter) {
+        this.shardCount = sharding.shardCount();
+        this.transactionTemplate = transactionTemplate;
+        this.scatter = scatter;
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    public int shardOf(UUID payerId) {
+        return ShardedIds.shardOf(payerId, shardCount);
+    }
+
+    public int shardOf(long paymentId) {
+        return ShardedIds.shardOf(paymentId, shardCount);
+    }
+
+    /**
+     * Binds the current transaction to the shard; it must not have run a statement yet.
+     */
+    public void bind(int shard) {
+        if (shardCount > 1) {
+            ShardRoutingDataSource.bindToTransaction(shard);
+        }
+    }
+
+    /**
+     * Runs the action against the shard, for work that starts its own transactions.
+     */
+    public <T> T onShard(int shard, Supplier<T> action) {
+        return shardCount > 1 ? ShardRoutingDataSource.onShard(shard, action) : action.get();
+    }
+
+    public <T> T inTransaction(int shard, Supplier<T> action) {
+        return transactionTemplate.execute(status -> {
+            bind(shard);
+            return action.get();
+        });
+    }
+
+    /**
+     * Runs the action against every shard in parallel, returning the results in shard order.
+     */
+    public <T> List<T> onEveryShard(Supplier<T> action) {
+        if (shardCount == 1) {
+            return List.of(action.get());
+        }
+
+        // the caller never runs on the executor, so a bounded one cannot starve the tasks it waits for
+        List<Future<T>> futures = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            int target = shard;
+            futures.add(scatter.submit(() -> ShardRoutingDataSource.onShard(target, action)));
+        }
+
+        List<T> results = new ArrayList<>(shardCount);
+        for (Future<T> future : futures) {
+            results.add(join(future));
+        }
+        return results;
+    }
+
+    private static <T> T join(Future<T> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the shards", e);
+        }
+    }
+}
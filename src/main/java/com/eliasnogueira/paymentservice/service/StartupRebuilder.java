@@ -0,0 +1,44 @@
+package com.eliasnogueira.paymentservice.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rebuilds the in-memory state derived from the database after the journal replay and before the web server starts,
+ * so no request changes it while it is being rebuilt.
+ */
+@Component
+@RequiredArgsConstructor
+public class StartupRebuilder implements SmartLifecycle {
+
+    private final PaymentArchiver paymentArchiver;
+    private final DailyTotalLedger dailyTotalLedger;
+    private final PayerSummaryStore payerSummaryStore;
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        // the summaries read the archive, which must not hold a segment whose delete never committed
+        paymentArchiver.recover();
+        dailyTotalLedger.rebuild();
+        payerSummaryStore.rebuild();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // right after JournalReplayer, long before the web server's phase
+    @Override
+    public int getPhase() {
+        return Integer.MIN_VALUE + 1;
+    }
+}
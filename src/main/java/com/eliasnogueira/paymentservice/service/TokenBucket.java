@@ -0,0 +1,55 @@
+package com.eliasnogueira.paymentservice.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket refilled at a fixed rate up to its burst. The only state is the instant the bucket will be
+ * full again, so taking tokens is one compare-and-set and a bucket needs no timer to refill.
+ */
+public final class TokenBucket {
+
+    private final long nanosPerToken;
+    private final long capacityNanos;
+    private final int burst;
+    // starts in the past, which is a full bucket
+    private final AtomicLong fullAt = new AtomicLong(Long.MIN_VALUE);
+
+    public TokenBucket(int permitsPerSecond, int burst) {
+        if (permitsPerSecond < 1 || burst < 1) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.nanosPerToken = 1_000_000_000L / permitsPerSecond;
+        this.capacityNanos = nanosPerToken * burst;
+        this.burst = burst;
+    }
+
+    public int burst() {
+        return burst;
+    }
+
+    /**
+     * Takes the permits if the bucket holds them. Returns 0 when they were taken, otherwise the nanoseconds until it
+     * will hold them, leaving the bucket untouched.
+     */
+    public long tryAcquire(int permits, long nowNanos) {
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, nowNanos) + permits * nanosPerToken;
+            long overdraft = next - nowNanos - capacityNanos;
+            if (overdraft > 0) {
+                return overdraft;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Gives back permits taken by {@link #tryAcquire}. Subtracting commutes with concurrent takes, so it needs no
+     * compare-and-set.
+     */
+    public void release(int permits) {
+        fullAt.addAndGet(-permits * nanosPerToken);
+    }
+}
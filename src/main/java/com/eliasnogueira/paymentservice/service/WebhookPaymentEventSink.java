@@ -0,0 +1,41 @@
+package com.eliasnogueira.paymentservice.service;
+
+import com.eliasnogueira.paymentservice.dto.PaymentEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * POSTs every batch as a JSON array to {@code payment.outbox.webhook.url}; anything but a 2xx answer is retried with
+ * the whole batch.
+ */
+@Component
+@ConditionalOnProperty(name = "payment.outbox.sink", havingValue = "webhook")
+public class WebhookPaymentEventSink implements PaymentEventSink {
+
+    private final RestClient restClient;
+
+    public WebhookPaymentEventSink(RestClient.Builder restClientBuilder,
+                                   @Value("${payment.outbox.webhook.url}") String url,
+                                   @Value("${payment.outbox.webhook.timeout:5s}") Duration timeout) {
+        var requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeout);
+        requestFactory.setReadTimeout(timeout);
+        this.restClient = restClientBuilder.baseUrl(url).requestFactory(requestFactory).build();
+    }
+
+    @Override
+    public void publish(List<PaymentEvent> events) {
+        restClient.post()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(events)
+                .retrieve()
+                .toBodilessEntity();
+    }
+}
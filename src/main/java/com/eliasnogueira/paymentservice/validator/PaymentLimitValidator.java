@@ -1,12 +1,14 @@
 package com.eliasnogueira.paymentservice.validator;
 
 import com.eliasnogueira.paymentservice.exceptions.PaymentLimitException;
+import com.eliasnogueira.paymentservice.model.MinorUnits;
 
 import java.math.BigDecimal;
 
 public final class PaymentLimitValidator {
 
     private static final BigDecimal MAX_LIMIT = new BigDecimal("2000.00");
+    private static final long MAX_LIMIT_MINOR_UNITS = MinorUnits.of(MAX_LIMIT);
 
     public static boolean isWithinLimit(BigDecimal amount) {
         if (amount == null) return false;
@@ -17,4 +19,15 @@ public final class PaymentLimitValidator {
 
         return amount.compareTo(MAX_LIMIT) <= 0;
     }
+
+    /**
+     * Same check on an amount in cents, see {@link MinorUnits}.
+     */
+    public static boolean isWithinLimit(long amountMinorUnits) {
+        if (amountMinorUnits <= 0) {
+            throw new PaymentLimitException("Amount must be greater than zero");
+        }
+
+        return amountMinorUnits <= MAX_LIMIT_MINOR_UNITS;
+    }
 }
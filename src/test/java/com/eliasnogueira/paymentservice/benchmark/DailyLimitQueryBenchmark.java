@@ -0,0 +1,104 @@
+package com.eliasnogueira.paymentservice.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the daily limit {@code SUM} query as the {@code payments} table grows from 10k to 10M rows, with and
+ * without the payer index declared on {@code Payment}. The 10M rows case needs a few GB of heap for H2.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx6g")
+public class DailyLimitQueryBenchmark {
+
+    private static final int PAYERS = 10_000;
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    private int rows;
+
+    @Param({"true", "false"})
+    private boolean indexed;
+
+    private Connection connection;
+    private PreparedStatement dailyTotal;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:limit-benchmark", "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE payments (id BIGINT PRIMARY KEY, payer_id UUID NOT NULL, " +
+                    "payment_source VARCHAR(255) NOT NULL, amount NUMERIC(38, 2) NOT NULL, " +
+                    "status VARCHAR(255) NOT NULL, created_at TIMESTAMP(6) NOT NULL)");
+            // payers are spread evenly over the rows, one payment per payer every few minutes over the past days
+            statement.execute("INSERT INTO payments SELECT X, CAST('00000000-0000-0000-0000-' || " +
+                    "LPAD(CAST(MOD(X, " + PAYERS + ") AS VARCHAR), 12, '0') AS UUID), 'PIX', 10.00, 'PAID', " +
+                    "DATEADD('SECOND', -X * 10, CURRENT_TIMESTAMP) FROM SYSTEM_RANGE(1, " + rows + ")");
+            if (indexed) {
+                statement.execute("CREATE INDEX idx_payments_payer_created_amount " +
+                        "ON payments (payer_id, created_at, amount)");
+            }
+        }
+
+        dailyTotal = connection.prepareStatement("SELECT COALESCE(SUM(amount), 0) FROM payments " +
+                "WHERE payer_id = ? AND created_at >= ? AND created_at < ?");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public BigDecimal dailyTotal() throws SQLException {
+        int payer = ThreadLocalRandom.current().nextInt(PAYERS);
+        LocalDate today = LocalDate.now();
+
+        dailyTotal.setObject(1, UUID.fromString("00000000-0000-0000-0000-%012d".formatted(payer)));
+        dailyTotal.setTimestamp(2, Timestamp.valueOf(today.atStartOfDay()));
+        dailyTotal.setTimestamp(3, Timestamp.valueOf(today.plusDays(1).atStartOfDay()));
+        try (ResultSet resultSet = dailyTotal.executeQuery()) {
+            resultSet.next();
+            return resultSet.getBigDecimal(1);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DailyLimitQueryBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
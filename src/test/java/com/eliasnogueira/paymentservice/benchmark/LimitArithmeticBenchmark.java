@@ -0,0 +1,74 @@
+package com.eliasnogueira.paymentservice.benchmark;
+
+import com.eliasnogueira.paymentservice.model.MinorUnits;
+import com.eliasnogueira.paymentservice.validator.PaymentLimitValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The daily limit step, adding a payment to the payer's running total and checking the limit, with {@link BigDecimal}
+ * against {@link MinorUnits}. Run {@link #main} and compare the score and {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LimitArithmeticBenchmark {
+
+    private static final int AMOUNTS = 1024;
+
+    private final BigDecimal[] decimalAmounts = new BigDecimal[AMOUNTS];
+    private final long[] minorUnitAmounts = new long[AMOUNTS];
+    private BigDecimal decimalTotal = BigDecimal.ZERO;
+    private long minorUnitTotal;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < AMOUNTS; i++) {
+            decimalAmounts[i] = BigDecimal.valueOf(ThreadLocalRandom.current().nextLong(1, 50_000), 2);
+            minorUnitAmounts[i] = MinorUnits.of(decimalAmounts[i]);
+        }
+    }
+
+    @Benchmark
+    public boolean bigDecimal() {
+        BigDecimal updated = decimalTotal.add(decimalAmounts[next++ & (AMOUNTS - 1)]);
+        boolean within = PaymentLimitValidator.isWithinLimit(updated);
+        decimalTotal = within ? updated : BigDecimal.ZERO;
+        return within;
+    }
+
+    @Benchmark
+    public boolean minorUnits() {
+        long updated = Math.addExact(minorUnitTotal, minorUnitAmounts[next++ & (AMOUNTS - 1)]);
+        boolean within = PaymentLimitValidator.isWithinLimit(updated);
+        minorUnitTotal = within ? updated : 0;
+        return within;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LimitArithmeticBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,85 @@
+package com.eliasnogueira.paymentservice.benchmark;
+
+import com.eliasnogueira.paymentservice.model.Payment;
+import com.eliasnogueira.paymentservice.model.enums.PaymentSource;
+import com.eliasnogueira.paymentservice.model.enums.PaymentStatus;
+import com.eliasnogueira.paymentservice.repository.JournalRecord;
+import com.eliasnogueira.paymentservice.repository.PaymentJournal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of journaling a created payment from 8 committing threads, waiting for the group-committed force or not
+ * waiting at all. Run {@link #main} with the journal directory on the disk to measure.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx1g")
+@Threads(8)
+public class PaymentJournalBenchmark {
+
+    @Param({"true", "false"})
+    private boolean sync;
+
+    private Path directory;
+    private PaymentJournal journal;
+    private List<JournalRecord> created;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory(Path.of("target"), "journal-benchmark");
+        journal = new PaymentJournal(true, directory, DataSize.ofMegabytes(64), sync);
+        journal.open(journalRecord -> { });
+        created = List.of(new JournalRecord.Row(Payment.builder()
+                .id(1L).payerId(UUID.randomUUID()).paymentSource(PaymentSource.PIX).amount(BigDecimal.TEN)
+                .status(PaymentStatus.PENDING).createdAt(LocalDateTime.now()).version(0L).build()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        journal.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public long append() {
+        long position = journal.append(created);
+        journal.awaitDurable(position);
+        return position;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PaymentJournalBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,53 @@
+package com.eliasnogueira.paymentservice.benchmark;
+
+import com.eliasnogueira.paymentservice.validator.PaymentLimitValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the limit comparison on its own, for an amount below and above the daily limit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentLimitValidatorBenchmark {
+
+    @Param({"150.75", "2500.00"})
+    private String amount;
+
+    private BigDecimal total;
+
+    @Setup
+    public void setUp() {
+        total = new BigDecimal(amount);
+    }
+
+    @Benchmark
+    public boolean isWithinLimit() {
+        return PaymentLimitValidator.isWithinLimit(total);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PaymentLimitValidatorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
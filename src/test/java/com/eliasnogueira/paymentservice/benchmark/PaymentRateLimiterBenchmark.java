@@ -0,0 +1,63 @@
+package com.eliasnogueira.paymentservice.benchmark;
+
+import com.eliasnogueira.paymentservice.service.PaymentRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of admitting a payment, from 8 threads spread over 100k payers, with rates high enough that nothing is
+ * rejected. Every call also takes a token of the single global bucket, its most contended point. Run {@link #main}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class PaymentRateLimiterBenchmark {
+
+    private static final int PAYERS = 1 << 17;
+
+    private final UUID[] payers = new UUID[PAYERS];
+    private PaymentRateLimiter rateLimiter;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < PAYERS; i++) {
+            payers[i] = UUID.randomUUID();
+        }
+        rateLimiter = new PaymentRateLimiter(true, 1_000_000, 1_000_000, 1_000_000, 1_000_000_000, 1_000_000_000,
+                new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public void acquire() {
+        rateLimiter.acquire(payers[ThreadLocalRandom.current().nextInt(PAYERS)]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PaymentRateLimiterBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,96 @@
+package com.eliasnogueira.paymentservice.benchmark;
+
+import com.eliasnogueira.paymentservice.PaymentServiceApplication;
+import com.eliasnogueira.paymentservice.dto.PaymentRequest;
+import com.eliasnogueira.paymentservice.dto.PaymentResponse;
+import com.eliasnogueira.paymentservice.model.enums.PaymentSource;
+import com.eliasnogueira.paymentservice.service.PaymentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PaymentService#createPayment} and {@link PaymentService#getPaymentById} in a Spring context without the web
+ * layer, backed by the embedded H2 database. {@code cacheSize=0} measures reads that always reach the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx1g")
+public class PaymentServiceBenchmark {
+
+    private static final int PAYMENTS = 1_000;
+
+    @Param({"10000", "0"})
+    private int cacheSize;
+
+    private ConfigurableApplicationContext context;
+    private PaymentService paymentService;
+    private long[] paymentIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(PaymentServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:service-benchmark",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.eliasnogueira.paymentservice=WARN",
+                        "--payment.cache.maximum-size=" + cacheSize);
+        paymentService = context.getBean(PaymentService.class);
+
+        paymentIds = new long[PAYMENTS];
+        for (int i = 0; i < PAYMENTS; i++) {
+            paymentIds[i] = paymentService.createPayment(newRequest()).getId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public PaymentResponse createPayment() {
+        return paymentService.createPayment(newRequest());
+    }
+
+    @Benchmark
+    public PaymentResponse getPaymentById() {
+        return paymentService.getPaymentById(paymentIds[ThreadLocalRandom.current().nextInt(PAYMENTS)]);
+    }
+
+    // a fresh payer per call keeps the daily limit from rejecting payments during long runs
+    private static PaymentRequest newRequest() {
+        return new PaymentRequest(UUID.randomUUID(), PaymentSource.PIX, new BigDecimal("10.00"));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PaymentServiceBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
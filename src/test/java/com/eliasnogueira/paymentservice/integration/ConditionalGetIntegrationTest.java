@@ -0,0 +1,117 @@
+package com.eliasnogueira.paymentservice.integration;
+
+import com.eliasnogueira.paymentservice.dto.PaymentRequest;
+import com.eliasnogueira.paymentservice.dto.PaymentUpdateRequest;
+import com.eliasnogueira.paymentservice.model.enums.PaymentSource;
+import com.eliasnogueira.paymentservice.model.enums.PaymentStatus;
+import com.eliasnogueira.paymentservice.repository.PaymentRepository;
+import com.eliasnogueira.paymentservice.service.DailyTotalLedger;
+import com.eliasnogueira.paymentservice.service.PaymentService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:conditional-get")
+@AutoConfigureMockMvc
+public class ConditionalGetIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private DailyTotalLedger dailyTotalLedger;
+
+    @BeforeEach
+    void cleanUpDatabase() {
+        paymentRepository.deleteAll();
+        dailyTotalLedger.rebuild();
+    }
+
+    @Test
+    @DisplayName("Should answer an unchanged payment with 304 and a changed one with its new ETag")
+    void shouldRevalidatePayment() throws Exception {
+        var payment = paymentService.createPayment(
+                new PaymentRequest(UUID.randomUUID(), PaymentSource.PIX, new BigDecimal("10.00")));
+        String uri = "/api/payments/" + payment.getId();
+
+        String eTag = mockMvc.perform(get(uri))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get(uri).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+
+        paymentService.updatePayment(payment.getId(),
+                PaymentUpdateRequest.builder().status(PaymentStatus.PAID).build());
+
+        mockMvc.perform(get(uri).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(jsonPath("$.status").value("PAID"));
+    }
+
+    @Test
+    @DisplayName("Should answer If-None-Match for an unknown payment with 404")
+    void shouldNotFindUnknownPaymentOnRevalidation() throws Exception {
+        mockMvc.perform(get("/api/payments/999999").header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Should change the payer list ETag on every create and update of the payer's payments only")
+    void shouldRevalidatePayerPayments() throws Exception {
+        UUID payerId = UUID.randomUUID();
+        String uri = "/api/payments/payer/" + payerId;
+        var payment = paymentService.createPayment(new PaymentRequest(payerId, PaymentSource.PIX, BigDecimal.ONE));
+
+        String created = eTagOf(uri);
+        mockMvc.perform(get(uri).header(HttpHeaders.IF_NONE_MATCH, created))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        // another payer's payments leave this list alone
+        paymentService.createPayment(new PaymentRequest(UUID.randomUUID(), PaymentSource.PIX, BigDecimal.ONE));
+        assertThat(eTagOf(uri)).isEqualTo(created);
+
+        paymentService.updatePayment(payment.getId(),
+                PaymentUpdateRequest.builder().status(PaymentStatus.PAID).build());
+        String updated = eTagOf(uri);
+        assertThat(updated).isNotEqualTo(created)
+                .isEqualTo("\"" + paymentService.getPayerRevision(payerId) + "\"");
+
+        paymentService.createPayment(new PaymentRequest(payerId, PaymentSource.PIX, BigDecimal.ONE));
+        mockMvc.perform(get(uri).header(HttpHeaders.IF_NONE_MATCH, updated))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    private String eTagOf(String uri) throws Exception {
+        return mockMvc.perform(get(uri))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
@@ -0,0 +1,209 @@
+package com.eliasnogueira.paymentservice.integration;
+
+import com.eliasnogueira.paymentservice.dto.PaymentRequest;
+import com.eliasnogueira.paymentservice.exceptions.PaymentLimitException;
+import com.eliasnogueira.paymentservice.model.enums.PaymentSource;
+import com.eliasnogueira.paymentservice.repository.PaymentRepository;
+import com.eliasnogueira.paymentservice.service.DailyTotalLedger;
+import com.eliasnogueira.paymentservice.service.PaymentService;
+import com.eliasnogueira.paymentservice.service.PaymentShards;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@SpringBootTest
+public class DailyLimitConcurrencyTest {
+
+    private static final int THREADS = 32;
+    private static final BigDecimal AMOUNT = new BigDecimal("100.00");
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private DailyTotalLedger dailyTotalLedger;
+
+    @BeforeEach
+    void cleanUpDatabase() {
+        paymentRepository.deleteAll();
+        dailyTotalLedger.rebuild();
+    }
+
+    @Test
+    @DisplayName("Should never exceed the daily limit when the same payer pays concurrently")
+    void shouldHoldLimitForConcurrentPayer() throws Exception {
+        assertLimitHoldsForConcurrentPayer(paymentService);
+    }
+
+    // throughput on a shared machine is too noisy to assert, the non-blocking guarantee is checked in DatabaseMode
+    @Test
+    @Tag("load")
+    @DisplayName("Should not serialize payments of unrelated payers")
+    void shouldScaleAcrossUnrelatedPayers() throws Exception {
+        int paymentsPerPayer = 10;
+
+        long singleThreaded = createForUnrelatedPayers(1, paymentsPerPayer * THREADS);
+        long multiThreaded = createForUnrelatedPayers(THREADS, paymentsPerPayer);
+
+        log.info("Unrelated payers: {} payments/s on 1 thread, {} payments/s on {} threads",
+                throughput(paymentsPerPayer * THREADS, singleThreaded),
+                throughput(paymentsPerPayer * THREADS, multiThreaded), THREADS);
+        assertThat(paymentRepository.count()).isEqualTo(2L * paymentsPerPayer * THREADS);
+    }
+
+    @Nested
+    @TestPropertySource(properties = "payment.limit.mode=DATABASE")
+    class DatabaseMode {
+
+        // the enclosing instance is injected from the LEDGER context, this class needs the beans of its own
+        @Autowired
+        private PaymentService databasePaymentService;
+
+        @Autowired
+        private PaymentShards paymentShards;
+
+        @Test
+        @DisplayName("Should never exceed the daily limit when checking the limit against the database")
+        void shouldHoldLimitForConcurrentPayer() throws Exception {
+            assertLimitHoldsForConcurrentPayer(databasePaymentService);
+        }
+
+        @Test
+        @DisplayName("Should not make a payer wait for the open transaction of an unrelated payer")
+        void shouldNotBlockUnrelatedPayer() throws Exception {
+            UUID holder = UUID.randomUUID();
+            UUID unrelated = UUID.randomUUID();
+            while (stripe(unrelated) == stripe(holder)) {
+                unrelated = UUID.randomUUID();
+            }
+            UUID other = unrelated;
+
+            var reserved = new CountDownLatch(1);
+            var release = new CountDownLatch(1);
+            ExecutorService executor = Executors.newFixedThreadPool(3);
+            try {
+                // the holder's lock stays taken until its transaction commits
+                Future<?> holding = executor.submit(() -> paymentShards.inTransaction(0, () -> {
+                    databasePaymentService.createPayment(new PaymentRequest(holder, PaymentSource.PIX, AMOUNT));
+                    reserved.countDown();
+                    await(release);
+                    return null;
+                }));
+                assertThat(reserved.await(10, TimeUnit.SECONDS)).isTrue();
+
+                Future<?> samePayer = executor.submit(() ->
+                        databasePaymentService.createPayment(new PaymentRequest(holder, PaymentSource.PIX, AMOUNT)));
+                executor.submit(() -> databasePaymentService.createPayment(
+                        new PaymentRequest(other, PaymentSource.PIX, AMOUNT))).get(10, TimeUnit.SECONDS);
+                assertThat(samePayer).as("same payer waits for the open transaction").isNotDone();
+
+                release.countDown();
+                holding.get(10, TimeUnit.SECONDS);
+                samePayer.get(10, TimeUnit.SECONDS);
+            } finally {
+                release.countDown();
+                executor.shutdownNow();
+            }
+            assertThat(paymentRepository.count()).isEqualTo(3);
+        }
+    }
+
+    private void assertLimitHoldsForConcurrentPayer(PaymentService paymentService) throws Exception {
+        UUID payerId = UUID.randomUUID();
+        var accepted = new AtomicInteger();
+        var rejected = new AtomicInteger();
+
+        runConcurrently(THREADS, () -> {
+            try {
+                paymentService.createPayment(new PaymentRequest(payerId, PaymentSource.PIX, AMOUNT));
+                accepted.incrementAndGet();
+            } catch (PaymentLimitException e) {
+                rejected.incrementAndGet();
+            }
+            return null;
+        });
+
+        LocalDate today = LocalDate.now();
+        BigDecimal persisted = paymentRepository.sumPaymentsByPayerIdAndDate(payerId, today.atStartOfDay(),
+                today.plusDays(1).atStartOfDay());
+
+        assertThat(accepted.get()).isEqualTo(20);
+        assertThat(rejected.get()).isEqualTo(THREADS - 20);
+        assertThat(persisted).isEqualByComparingTo("2000.00");
+    }
+
+    private long createForUnrelatedPayers(int threads, int paymentsPerThread) throws Exception {
+        long start = System.nanoTime();
+        runConcurrently(threads, () -> {
+            UUID payerId = UUID.randomUUID();
+            for (int i = 0; i < paymentsPerThread; i++) {
+                paymentService.createPayment(new PaymentRequest(payerId, PaymentSource.CREDIT_CARD, BigDecimal.ONE));
+            }
+            return null;
+        });
+        return System.nanoTime() - start;
+    }
+
+    private static void runConcurrently(int threads, Callable<Void> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        var startSignal = new CountDownLatch(1);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    startSignal.await();
+                    return task.call();
+                }));
+            }
+            startSignal.countDown();
+            for (Future<Void> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // the striping of DailyTotalLedger.lockOrder with the default payment.limit.lock-stripes
+    private static int stripe(UUID payerId) {
+        return Math.floorMod(payerId.hashCode(), 256);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long throughput(int payments, long elapsedNanos) {
+        return payments * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+}
@@ -0,0 +1,138 @@
+package com.eliasnogueira.paymentservice.integration;
+
+import com.eliasnogueira.paymentservice.dto.PaymentRequest;
+import com.eliasnogueira.paymentservice.dto.PaymentResponse;
+import com.eliasnogueira.paymentservice.model.enums.PaymentSource;
+import com.eliasnogueira.paymentservice.repository.IdempotencyKeyRepository;
+import com.eliasnogueira.paymentservice.repository.PaymentRepository;
+import com.eliasnogueira.paymentservice.service.DailyTotalLedger;
+import com.eliasnogueira.paymentservice.service.IdempotencyService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class IdempotencyIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private DailyTotalLedger dailyTotalLedger;
+
+    @BeforeEach
+    void cleanUpDatabase() {
+        idempotencyKeyRepository.deleteAll();
+        paymentRepository.deleteAll();
+        dailyTotalLedger.rebuild();
+    }
+
+    @Test
+    @DisplayName("Should replay the stored payment when the same Idempotency-Key is sent again")
+    void shouldReplayPaymentForSameKey() throws Exception {
+        String key = UUID.randomUUID().toString();
+        String json = """
+        {
+            "payerId": "%s",
+            "paymentSource": "PIX",
+            "amount": 1500.00
+        }
+        """.formatted(UUID.randomUUID());
+
+        String first = mockMvc.perform(post("/api/payments").header("Idempotency-Key", key)
+                        .contentType(MediaType.APPLICATION_JSON).content(json))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+
+        // a second payment of 1500.00 would exceed the daily limit, so a replay must not check it again
+        mockMvc.perform(post("/api/payments").header("Idempotency-Key", key)
+                        .contentType(MediaType.APPLICATION_JSON).content(json))
+                .andExpect(status().isCreated())
+                .andExpect(result -> assertThat(result.getResponse().getContentAsString()).isEqualTo(first));
+
+        assertThat(paymentRepository.count()).isEqualTo(1);
+        assertThat(idempotencyKeyRepository.existsById(key)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should reject an Idempotency-Key reused with a different request")
+    void shouldRejectKeyReusedWithDifferentRequest() throws Exception {
+        String key = UUID.randomUUID().toString();
+        UUID payerId = UUID.randomUUID();
+        String template = """
+        {
+            "payerId": "%s",
+            "paymentSource": "PIX",
+            "amount": %s
+        }
+        """;
+
+        mockMvc.perform(post("/api/payments").header("Idempotency-Key", key)
+                        .contentType(MediaType.APPLICATION_JSON).content(template.formatted(payerId, "10.00")))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(post("/api/payments").header("Idempotency-Key", key)
+                        .contentType(MediaType.APPLICATION_JSON).content(template.formatted(payerId, "20.00")))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.message").value(containsString("different request")));
+
+        assertThat(paymentRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should create a single payment when duplicates with the same key arrive concurrently")
+    void shouldCreateSinglePaymentForConcurrentDuplicates() throws Exception {
+        String key = UUID.randomUUID().toString();
+        var request = new PaymentRequest(UUID.randomUUID(), PaymentSource.CREDIT_CARD, new BigDecimal("50.00"));
+        int threads = 16;
+        var start = new CountDownLatch(1);
+        List<Future<PaymentResponse>> responses = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int i = 0; i < threads; i++) {
+                responses.add(executor.submit(() -> {
+                    start.await();
+                    return idempotencyService.createPayment(key, request);
+                }));
+            }
+            start.countDown();
+
+            Long paymentId = responses.getFirst().get().getId();
+            for (Future<PaymentResponse> response : responses) {
+                assertThat(response.get().getId()).isEqualTo(paymentId);
+            }
+        }
+
+        assertThat(paymentRepository.count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,60 @@
+package com.eliasnogueira.paymentservice.integration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+public class MetricsIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @DisplayName("Should expose hot path metrics on the Prometheus endpoint")
+    void shouldExposeHotPathMetrics() throws Exception {
+        String json = """
+        {
+            "payerId": "%s",
+            "paymentSource": "DEBIT_CARD",
+            "amount": %s
+        }
+        """;
+        UUID payerId = UUID.randomUUID();
+
+        mockMvc.perform(post("/api/payments").contentType(MediaType.APPLICATION_JSON)
+                        .content(json.formatted(payerId, "1500.00")))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post("/api/payments").contentType(MediaType.APPLICATION_JSON)
+                        .content(json.formatted(payerId, "600.00")))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/payments/999999"))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("payment_create_stage_seconds_count{application=\"payment-service\",stage=\"limit_check\"}")))
+                .andExpect(content().string(containsString("stage=\"commit\"")))
+                .andExpect(content().string(containsString("payment_json_write_seconds_count")))
+                .andExpect(content().string(containsString("payment_limit_rejections_total{application=\"payment-service\",source=\"DEBIT_CARD\"} 1.0")))
+                .andExpect(content().string(containsString("payment_errors_total{application=\"payment-service\",type=\"not_found\"}")))
+                .andExpect(content().string(containsString("spring_data_repository_invocations_seconds_count")))
+                .andExpect(content().string(containsString("hikaricp_connections_acquire_seconds_count")))
+                .andExpect(content().string(containsString("cache_gets_total{application=\"payment-service\",cache=\"payments\"")));
+    }
+}
@@ -0,0 +1,127 @@
+package com.eliasnogueira.paymentservice.integration;
+
+import com.eliasnogueira.paymentservice.dto.PaymentEvent;
+import com.eliasnogueira.paymentservice.dto.PaymentRequest;
+import com.eliasnogueira.paymentservice.dto.PaymentUpdateRequest;
+import com.eliasnogueira.paymentservice.model.enums.PaymentEventType;
+import com.eliasnogueira.paymentservice.model.enums.PaymentSource;
+import com.eliasnogueira.paymentservice.model.enums.PaymentStatus;
+import com.eliasnogueira.paymentservice.repository.OutboxEventRepository;
+import com.eliasnogueira.paymentservice.repository.PaymentRepository;
+import com.eliasnogueira.paymentservice.service.DailyTotalLedger;
+import com.eliasnogueira.paymentservice.service.InMemoryPaymentEventSink;
+import com.eliasnogueira.paymentservice.service.OutboxRelay;
+import com.eliasnogueira.paymentservice.service.PaymentService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox",
+        "payment.outbox.enabled=true",
+        "payment.outbox.sink=memory",
+        "payment.outbox.memory.capacity=4",
+        "payment.outbox.batch-size=4",
+        "payment.outbox.poll-interval=1h"
+})
+public class OutboxIntegrationTest {
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private InMemoryPaymentEventSink sink;
+
+    @Autowired
+    private DailyTotalLedger dailyTotalLedger;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void cleanUp() {
+        paymentRepository.deleteAll();
+        dailyTotalLedger.rebuild();
+        await(() -> {
+            outboxRelay.relay();
+            sink.drain(Integer.MAX_VALUE);
+            return outboxEventRepository.count() == 0;
+        });
+    }
+
+    @Test
+    @DisplayName("Should publish the events of a payment in order once their transactions commit")
+    void shouldPublishEventsInOrder() {
+        var payment = paymentService.createPayment(
+                new PaymentRequest(UUID.randomUUID(), PaymentSource.PIX, new BigDecimal("12.34")));
+        paymentService.updatePayment(payment.getId(),
+                PaymentUpdateRequest.builder().status(PaymentStatus.PAID).build());
+
+        List<PaymentEvent> events = new ArrayList<>();
+        await(() -> {
+            events.addAll(sink.drain(10));
+            return events.size() == 2;
+        });
+
+        assertThat(events).extracting(PaymentEvent::getType, PaymentEvent::getPaymentId, PaymentEvent::getStatus,
+                        PaymentEvent::getVersion)
+                .containsExactly(
+                        tuple(PaymentEventType.CREATED, payment.getId(), PaymentStatus.PENDING, 0L),
+                        tuple(PaymentEventType.STATUS_CHANGED, payment.getId(), PaymentStatus.PAID, 1L));
+        assertThat(events.getFirst().getAmount()).isEqualByComparingTo("12.34");
+        assertThat(outboxEventRepository.count()).isZero();
+        assertThat(meterRegistry.get("payment.outbox.lag").timer().count()).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should keep refused events in the outbox and publish them once the sink accepts them")
+    void shouldRetryRefusedEvents() {
+        double failures = meterRegistry.get("payment.outbox.failures").counter().count();
+        // the queue takes the first batch of four, the fifth event does not fit
+        paymentService.createPayments(IntStream.range(0, 5)
+                .mapToObj(i -> new PaymentRequest(UUID.randomUUID(), PaymentSource.PIX, BigDecimal.ONE))
+                .toList());
+        await(() -> outboxEventRepository.count() == 1
+                && meterRegistry.get("payment.outbox.failures").counter().count() > failures);
+
+        assertThat(sink.drain(10)).hasSize(4);
+        await(() -> outboxRelay.relay() == 1 || outboxEventRepository.count() == 0);
+        assertThat(sink.drain(10)).hasSize(1);
+        assertThat(outboxEventRepository.count()).isZero();
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition met within 5 seconds").isLessThan(deadline);
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.eliasnogueira.paymentservice.integration;
+
+import com.eliasnogueira.paymentservice.dto.PaymentRequest;
+import com.eliasnogueira.paymentservice.dto.PaymentResponse;
+import com.eliasnogueira.paymentservice.model.enums.PaymentSource;
+import com.eliasnogueira.paymentservice.repository.PaymentArchive;
+import com.eliasnogueira.paymentservice.repository.PaymentRepository;
+import com.eliasnogueira.paymentservice.service.DailyTotalLedger;
+import com.eliasnogueira.paymentservice.service.PayerSummaryStore;
+import com.eliasnogueira.paymentservice.service.PaymentArchiver;
+import com.eliasnogueira.paymentservice.service.PaymentCache;
+import com.eliasnogueira.paymentservice.service.PaymentService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:archive",
+        "payment.archive.directory=target/archive-test/${random.uuid}"
+})
+@AutoConfigureMockMvc
+public class PaymentArchiveIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PaymentArchiver paymentArchiver;
+
+    @Autowired
+    private PaymentArchive paymentArchive;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentCache paymentCache;
+
+    @Autowired
+    private PayerSummaryStore payerSummaryStore;
+
+    @Autowired
+    private DailyTotalLedger dailyTotalLedger;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void cleanUpDatabase() {
+        paymentRepository.deleteAll();
+        dailyTotalLedger.rebuild();
+    }
+
+    @Test
+    @DisplayName("Should archive old settled payments and keep serving them by id and by payer")
+    void shouldServeArchivedPayments() throws Exception {
+        UUID payerId = UUID.randomUUID();
+        var old = create(payerId);
+        var oldPending = create(payerId);
+        var recent = create(payerId);
+        jdbcTemplate.update("UPDATE payments SET created_at = ? WHERE id IN (?, ?)",
+                LocalDateTime.now().minusDays(120), old.getId(), oldPending.getId());
+        jdbcTemplate.update("UPDATE payments SET status = 'PAID' WHERE id IN (?, ?)", old.getId(), recent.getId());
+        List.of(old, oldPending, recent).forEach(payment -> paymentCache.invalidate(payment.getId()));
+
+        assertThat(paymentArchiver.archive()).isEqualTo(1);
+
+        assertThat(paymentRepository.existsById(old.getId())).isFalse();
+        assertThat(paymentRepository.count()).isEqualTo(2);
+        mockMvc.perform(get("/api/payments/{id}", old.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("PAID"))
+                .andExpect(jsonPath("$.amount").value(10.00));
+        String eTag = mockMvc.perform(get("/api/payments/payer/{payerId}", payerId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains(old.getId().intValue(),
+                        oldPending.getId().intValue(), recent.getId().intValue())))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/payments/payer/{payerId}", payerId).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(put("/api/payments/{id}", old.getId()).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\":\"FRAUD\"}"))
+                .andExpect(status().isConflict());
+
+        payerSummaryStore.rebuild();
+        assertThat(payerSummaryStore.summary(payerId).getOverall().getCount()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should drop the newest segment on startup when its rows are still in the table")
+    void shouldDropUncommittedSegment() {
+        var payment = create(UUID.randomUUID());
+        int segments = paymentArchive.segmentCount();
+        paymentArchive.append(List.of(paymentRepository.findById(payment.getId()).orElseThrow()));
+
+        paymentArchiver.recover();
+
+        assertThat(paymentArchive.segmentCount()).isEqualTo(segments);
+        assertThat(paymentArchive.findById(payment.getId())).isEmpty();
+    }
+
+    private PaymentResponse create(UUID payerId) {
+        return paymentService.createPayment(new PaymentRequest(payerId, PaymentSource.PIX, new BigDecimal("10.00")));
+    }
+}
@@ -0,0 +1,48 @@
+package com.eliasnogueira.paymentservice.integration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class PaymentIndexTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Should use the payer index for the daily limit query")
+    void shouldUsePayerIndexForDailyLimit() {
+        String plan = explain("SELECT COALESCE(SUM(amount), 0) FROM payments " +
+                "WHERE payer_id = '123e4567-e89b-12d3-a456-426614174000' " +
+                "AND created_at >= TIMESTAMP '2025-01-15 00:00:00' AND created_at < TIMESTAMP '2025-01-16 00:00:00'");
+
+        assertThat(plan).containsIgnoringCase("IDX_PAYMENTS_PAYER_CREATED_AMOUNT");
+    }
+
+    @Test
+    @DisplayName("Should use the payer index for the payer history query")
+    void shouldUsePayerIndexForPayerHistory() {
+        String plan = explain("SELECT * FROM payments WHERE payer_id = '123e4567-e89b-12d3-a456-426614174000'");
+
+        assertThat(plan).containsIgnoringCase("IDX_PAYMENTS_PAYER_CREATED_AMOUNT");
+    }
+
+    @Test
+    @DisplayName("Should use the creation date index to rebuild the daily totals")
+    void shouldUseCreatedIndexForDailyTotals() {
+        String plan = explain("SELECT payer_id, SUM(amount) FROM payments " +
+                "WHERE created_at >= TIMESTAMP '2025-01-15 00:00:00' AND created_at < TIMESTAMP '2025-01-16 00:00:00' " +
+                "GROUP BY payer_id");
+
+        assertThat(plan).containsIgnoringCase("IDX_PAYMENTS_CREATED");
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+    }
+}
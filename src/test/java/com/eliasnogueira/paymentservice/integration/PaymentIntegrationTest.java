@@ -4,6 +4,9 @@ import com.eliasnogueira.paymentservice.model.Payment;
 import com.eliasnogueira.paymentservice.model.enums.PaymentSource;
 import com.eliasnogueira.paymentservice.model.enums.PaymentStatus;
 import com.eliasnogueira.paymentservice.repository.PaymentRepository;
+import com.eliasnogueira.paymentservice.service.DailyTotalLedger;
+import com.eliasnogueira.paymentservice.service.PayerSummaryStore;
+import com.jayway.jsonpath.JsonPath;
 import org.hamcrest.CoreMatchers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -15,13 +18,17 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.Matchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.hamcrest.CoreMatchers.is;
 
@@ -34,9 +41,16 @@ public class PaymentIntegrationTest {
     @Autowired
     private PaymentRepository paymentRepository;
 
+    @Autowired
+    private DailyTotalLedger dailyTotalLedger;
+
+    @Autowired
+    private PayerSummaryStore payerSummaryStore;
+
     @BeforeEach
     public void cleanUpDatabase() {
         paymentRepository.deleteAll();
+        dailyTotalLedger.rebuild();
     }
 
 
@@ -60,6 +74,32 @@ public class PaymentIntegrationTest {
     }
 
 
+    @Test
+    @DisplayName("Should create a batch of payments, rejecting the ones over the daily limit")
+    void shouldPostPaymentBatch() throws Exception {
+        String json = """
+        {
+            "payments": [
+                { "payerId": "7c9e6679-7425-40de-944b-e07fc1f90ae7", "paymentSource": "PIX", "amount": 900.00 },
+                { "payerId": "7c9e6679-7425-40de-944b-e07fc1f90ae7", "paymentSource": "PIX", "amount": 900.00 },
+                { "payerId": "7c9e6679-7425-40de-944b-e07fc1f90ae7", "paymentSource": "DEBIT_CARD", "amount": 900.00 },
+                { "payerId": "16fd2706-8baf-433b-82eb-8c7fada847da", "paymentSource": "CREDIT_CARD", "amount": 50.00 }
+            ]
+        }
+        """;
+
+        mockMvc.perform(post("/api/payments/batch").contentType(MediaType.APPLICATION_JSON).content(json))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(3))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.results[*].index", contains(0, 1, 2, 3)))
+                .andExpect(jsonPath("$.results[*].status", contains("CREATED", "CREATED", "REJECTED", "CREATED")))
+                .andExpect(jsonPath("$.results[0].payment.id").value(notNullValue()))
+                .andExpect(jsonPath("$.results[2].error").value("Daily payment limit exceeded for source: DEBIT_CARD"));
+
+        assertThat(paymentRepository.count()).isEqualTo(3);
+    }
+
     @Test
     @DisplayName("Should get a payment successfully")
     void shouldGetePaymentSuccessfully() throws Exception {
@@ -142,6 +182,125 @@ public class PaymentIntegrationTest {
 
     }
 
+    @Test
+    @DisplayName("Should summarize a payer's payments by source and status")
+    void shouldSummarizePayerPayments() throws Exception {
+        UUID payerId = UUID.randomUUID();
+        String json = """
+        {
+            "payerId": "%s",
+            "paymentSource": "%s",
+            "amount": %s
+        }
+        """;
+
+        String created = mockMvc.perform(post("/api/payments").contentType(MediaType.APPLICATION_JSON)
+                        .content(json.formatted(payerId, "PIX", "100.00")))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        mockMvc.perform(post("/api/payments").contentType(MediaType.APPLICATION_JSON)
+                        .content(json.formatted(payerId, "CREDIT_CARD", "50.25")))
+                .andExpect(status().isCreated());
+        Number paymentId = JsonPath.read(created, "$.id");
+        mockMvc.perform(put("/api/payments/" + paymentId).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\": \"PAID\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/payments/payer/" + payerId + "/summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.payerId").value(payerId.toString()))
+                .andExpect(jsonPath("$.overall.count").value(2))
+                .andExpect(jsonPath("$.overall.total").value(150.25))
+                .andExpect(jsonPath("$.bySource.PIX.count").value(1))
+                .andExpect(jsonPath("$.bySource.CREDIT_CARD.total").value(50.25))
+                .andExpect(jsonPath("$.bySource.DEBIT_CARD.count").value(0))
+                .andExpect(jsonPath("$.byStatus.PAID.total").value(100.0))
+                .andExpect(jsonPath("$.byStatus.PENDING.count").value(1))
+                .andExpect(jsonPath("$.byStatus.PENDING.total").value(50.25));
+
+        payerSummaryStore.rebuild();
+
+        mockMvc.perform(get("/api/payments/payer/" + payerId + "/summary"))
+                .andExpect(jsonPath("$.overall.count").value(2))
+                .andExpect(jsonPath("$.byStatus.PAID.count").value(1));
+    }
+
+    @Test
+    @DisplayName("Should return the new status of a cached payment right after an update")
+    void shouldNotServeStaleStatusAfterUpdate() throws Exception {
+        String json = """
+        {
+            "payerId": "%s",
+            "paymentSource": "PIX",
+            "amount": 10.00
+        }
+        """.formatted(UUID.randomUUID());
+
+        String created = mockMvc.perform(post("/api/payments").contentType(MediaType.APPLICATION_JSON).content(json))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        Number paymentId = JsonPath.read(created, "$.id");
+
+        mockMvc.perform(get("/api/payments/" + paymentId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(PaymentStatus.PENDING.toString()));
+
+        mockMvc.perform(put("/api/payments/" + paymentId).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\": \"PAID\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/payments/" + paymentId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(PaymentStatus.PAID.toString()))
+                .andExpect(jsonPath("$.version").value(1));
+    }
+
+    @Test
+    @DisplayName("Should update a payment when the expected version matches")
+    void shouldUpdatePaymentWithExpectedVersion() throws Exception {
+        var savedPayment = paymentRepository.save(Payment.builder()
+                .payerId(UUID.randomUUID())
+                .paymentSource(PaymentSource.PIX)
+                .amount(new BigDecimal("100.00"))
+                .status(PaymentStatus.PENDING)
+                .build());
+
+        String json = """
+        {
+            "status": "FRAUD",
+            "version": %d
+        }
+        """.formatted(savedPayment.getVersion());
+
+        mockMvc.perform(put("/api/payments/" + savedPayment.getId()).contentType(MediaType.APPLICATION_JSON).content(json))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(PaymentStatus.FRAUD.toString()))
+                .andExpect(jsonPath("$.amount").value(100.0))
+                .andExpect(jsonPath("$.payerId").value(savedPayment.getPayerId().toString()))
+                .andExpect(jsonPath("$.version").value(savedPayment.getVersion() + 1));
+
+        mockMvc.perform(put("/api/payments/" + savedPayment.getId()).contentType(MediaType.APPLICATION_JSON).content(json))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value(containsString("was modified concurrently")));
+
+        assertThat(paymentRepository.findById(savedPayment.getId()).orElseThrow().getStatus())
+                .isEqualTo(PaymentStatus.FRAUD);
+    }
+
+    @Test
+    @DisplayName("Should return 404 when updating a payment that does not exist")
+    void shouldntUpdateMissingPayment() throws Exception {
+        String json = """
+        {
+            "status": "PAID"
+        }
+        """;
+
+        mockMvc.perform(put("/api/payments/1010").contentType(MediaType.APPLICATION_JSON).content(json))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$").value("Payment not found with ID: 1010"));
+    }
+
     @Test
     @DisplayName("Should return all payments")
     void shouldGetAllPaymentsSuccessfully() throws Exception {
@@ -175,10 +334,94 @@ public class PaymentIntegrationTest {
         mockMvc.perform(get("/api/payments"))
                 .andExpect(status().isOk())
 
-                .andExpect(jsonPath("$",hasSize(3)))
-                .andExpect(jsonPath("$[*].payerId", everyItem(is(payerId.toString()))))
-                .andExpect(jsonPath("$[*].id", everyItem(notNullValue())))
-                .andExpect(jsonPath("$[*].amount", containsInAnyOrder(
-                        100.0, 200.0, 300.0)));
+                .andExpect(jsonPath("$.items",hasSize(3)))
+                .andExpect(jsonPath("$.items[*].payerId", everyItem(is(payerId.toString()))))
+                .andExpect(jsonPath("$.items[*].id", everyItem(notNullValue())))
+                .andExpect(jsonPath("$.items[*].amount", containsInAnyOrder(
+                        100.0, 200.0, 300.0)))
+                .andExpect(jsonPath("$.nextCursor").value(nullValue()));
+    }
+
+    @Test
+    @DisplayName("Should page through all payments with a cursor")
+    void shouldPageThroughPaymentsWithCursor() throws Exception {
+        UUID payerId = UUID.randomUUID();
+        for (String amount : new String[]{"100.00", "200.00", "300.00"}) {
+            paymentRepository.save(Payment.builder()
+                    .payerId(payerId)
+                    .paymentSource(PaymentSource.PIX)
+                    .amount(new BigDecimal(amount))
+                    .status(PaymentStatus.PENDING)
+                    .build());
+        }
+
+        var firstPage = mockMvc.perform(get("/api/payments").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[*].amount", contains(100.0, 200.0)))
+                .andExpect(jsonPath("$.nextCursor").value(notNullValue()))
+                .andReturn();
+
+        String cursor = JsonPath.read(firstPage.getResponse().getContentAsString(), "$.nextCursor");
+
+        mockMvc.perform(get("/api/payments").param("limit", "2").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].amount").value(300.0))
+                .andExpect(jsonPath("$.nextCursor").value(nullValue()));
+    }
+
+    @Test
+    @DisplayName("Should return 400 when the cursor is invalid")
+    void shouldRejectInvalidCursor() throws Exception {
+        mockMvc.perform(get("/api/payments").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid cursor: not-a-cursor"));
+    }
+
+    @Test
+    @DisplayName("Should export the filtered payments as NDJSON")
+    void shouldExportPaymentsAsNdjson() throws Exception {
+        UUID payerId = UUID.randomUUID();
+        var paid = paymentRepository.save(Payment.builder().payerId(payerId).paymentSource(PaymentSource.PIX)
+                .amount(new BigDecimal("100.00")).status(PaymentStatus.PAID).build());
+        paymentRepository.save(Payment.builder().payerId(payerId).paymentSource(PaymentSource.PIX)
+                .amount(new BigDecimal("200.00")).status(PaymentStatus.PENDING).build());
+
+        var result = mockMvc.perform(get("/api/payments/export").param("status", "PAID"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(body.lines()).hasSize(1);
+        String row = body.lines().findFirst().orElseThrow();
+        assertThat(JsonPath.<String>read(row, "$.status")).isEqualTo("PAID");
+        assertThat(LocalDateTime.parse(JsonPath.<String>read(row, "$.createdAt")))
+                .isEqualTo(paymentRepository.findById(paid.getId()).orElseThrow().getCreatedAt());
+    }
+
+    @Test
+    @DisplayName("Should export payments as CSV")
+    void shouldExportPaymentsAsCsv() throws Exception {
+        var savedPayment = paymentRepository.save(Payment.builder().payerId(UUID.randomUUID())
+                .paymentSource(PaymentSource.DEBIT_CARD).amount(new BigDecimal("150.00"))
+                .status(PaymentStatus.PENDING).build());
+
+        var result = mockMvc.perform(get("/api/payments/export").param("format", "CSV"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        var createdAt = paymentRepository.findById(savedPayment.getId()).orElseThrow().getCreatedAt();
+        assertThat(body.lines()).containsExactly("id,payerId,paymentSource,amount,status,createdAt,version",
+                savedPayment.getId() + "," + savedPayment.getPayerId() + ",DEBIT_CARD,150.00,PENDING," + createdAt
+                        + ",0");
     }
 }
@@ -0,0 +1,78 @@
+package com.eliasnogueira.paymentservice.integration;
+
+import com.eliasnogueira.paymentservice.PaymentServiceApplication;
+import com.eliasnogueira.paymentservice.dto.PaymentRequest;
+import com.eliasnogueira.paymentservice.dto.PaymentResponse;
+import com.eliasnogueira.paymentservice.dto.PaymentUpdateRequest;
+import com.eliasnogueira.paymentservice.model.enums.PaymentSource;
+import com.eliasnogueira.paymentservice.model.enums.PaymentStatus;
+import com.eliasnogueira.paymentservice.service.JournalReplayer;
+import com.eliasnogueira.paymentservice.service.PaymentService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PaymentJournalIntegrationTest {
+
+    @TempDir
+    private Path journalDirectory;
+
+    @Test
+    @DisplayName("Should rebuild payments, statuses and payer summaries from the journal in a fresh database")
+    void shouldReplayJournalOnRestart() {
+        UUID payerId = UUID.randomUUID();
+        PaymentResponse paid;
+        PaymentResponse pending;
+        PaymentResponse afterSnapshot;
+        try (var context = start("journal-1")) {
+            var paymentService = context.getBean(PaymentService.class);
+            paid = paymentService.createPayment(
+                    new PaymentRequest(payerId, PaymentSource.PIX, new BigDecimal("10.00")));
+            paid = paymentService.updatePayment(paid.getId(),
+                    PaymentUpdateRequest.builder().status(PaymentStatus.PAID).build());
+            pending = paymentService.createPayments(List.of(
+                    new PaymentRequest(payerId, PaymentSource.CREDIT_CARD, new BigDecimal("2.50")))).getResults()
+                    .getFirst().getPayment();
+
+            // the snapshot covers the rows so far, the journal the change after it
+            context.getBean(JournalReplayer.class).snapshot();
+            afterSnapshot = paymentService.createPayment(
+                    new PaymentRequest(payerId, PaymentSource.PIX, new BigDecimal("1.00")));
+        }
+
+        try (var context = start("journal-2")) {
+            var paymentService = context.getBean(PaymentService.class);
+
+            assertThat(paymentService.getPaymentById(paid.getId())).usingRecursiveComparison().isEqualTo(paid);
+            assertThat(paymentService.getPaymentById(pending.getId())).usingRecursiveComparison().isEqualTo(pending);
+            assertThat(paymentService.getPaymentsByPayerId(payerId)).extracting(PaymentResponse::getId)
+                    .containsExactly(paid.getId(), pending.getId(), afterSnapshot.getId());
+            assertThat(paymentService.getPayerSummary(payerId).getOverall().getCount()).isEqualTo(3);
+
+            var created = paymentService.createPayment(
+                    new PaymentRequest(payerId, PaymentSource.PIX, new BigDecimal("1.00")));
+            assertThat(created.getId()).isGreaterThan(afterSnapshot.getId());
+        }
+    }
+
+    private ConfigurableApplicationContext start(String database) {
+        return new SpringApplicationBuilder(PaymentServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:" + database,
+                        "--payment.journal.enabled=true",
+                        "--payment.journal.directory=" + journalDirectory,
+                        "--payment.journal.segment-size=1MB",
+                        "--payment.archive.directory=" + journalDirectory.resolve("archive"),
+                        "--spring.jpa.show-sql=false");
+    }
+}
@@ -0,0 +1,144 @@
+package com.eliasnogueira.paymentservice.integration;
+
+import com.eliasnogueira.paymentservice.repository.PaymentRepository;
+import com.eliasnogueira.paymentservice.service.DailyTotalLedger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:rate-limit",
+        "payment.rate-limit.payer.permits-per-second=1",
+        "payment.rate-limit.payer.burst=2"
+})
+@AutoConfigureMockMvc
+public class RateLimitIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private DailyTotalLedger dailyTotalLedger;
+
+    @BeforeEach
+    void cleanUpDatabase() {
+        paymentRepository.deleteAll();
+        dailyTotalLedger.rebuild();
+    }
+
+    @Test
+    @DisplayName("Should reject a payer over its rate with 429 and Retry-After without creating the payment")
+    void shouldRejectPayerOverRate() throws Exception {
+        UUID payerId = UUID.randomUUID();
+        create(payerId).andExpect(status().isCreated());
+        create(payerId).andExpect(status().isCreated());
+
+        create(payerId)
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.message").value("Too many payments for payer: " + payerId));
+        assertThat(paymentRepository.findResponsesByPayerId(payerId)).hasSize(2);
+
+        // other payers have buckets of their own
+        create(UUID.randomUUID()).andExpect(status().isCreated());
+    }
+
+    @Test
+    @DisplayName("Should replay a stored Idempotency-Key response without charging the payer")
+    void shouldNotChargeIdempotentReplay() throws Exception {
+        UUID payerId = UUID.randomUUID();
+        String key = UUID.randomUUID().toString();
+        create(payerId, key).andExpect(status().isCreated());
+        create(payerId).andExpect(status().isCreated());
+
+        create(payerId, key).andExpect(status().isCreated());
+        create(payerId).andExpect(status().isTooManyRequests());
+        assertThat(paymentRepository.findResponsesByPayerId(payerId)).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("Should charge a batch one token per payment of each payer")
+    void shouldChargeBatchPerPayment() throws Exception {
+        UUID payerId = UUID.randomUUID();
+        String payment = "{\"payerId\":\"" + payerId + "\",\"paymentSource\":\"PIX\",\"amount\":1.00}";
+
+        mockMvc.perform(post("/api/payments/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"payments\":[" + payment + "," + payment + "]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2));
+
+        create(payerId).andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    @DisplayName("Should refuse a batch with more payments for a payer than its burst")
+    void shouldRejectBatchOverBurst() throws Exception {
+        UUID payerId = UUID.randomUUID();
+
+        batch(payerId, payerId, payerId)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.payments").value(
+                        "At most 2 payments per payer are accepted in one batch, got 3 for payer " + payerId));
+
+        assertThat(paymentRepository.findResponsesByPayerId(payerId)).isEmpty();
+        create(payerId).andExpect(status().isCreated());
+        create(payerId).andExpect(status().isCreated());
+    }
+
+    @Test
+    @DisplayName("Should give back the tokens of the other payers of a rejected batch")
+    void shouldRejectBatchAllOrNothing() throws Exception {
+        UUID payerId = UUID.randomUUID();
+        UUID exhaustedPayerId = UUID.randomUUID();
+        create(exhaustedPayerId).andExpect(status().isCreated());
+        create(exhaustedPayerId).andExpect(status().isCreated());
+
+        batch(payerId, payerId, exhaustedPayerId).andExpect(status().isTooManyRequests());
+
+        assertThat(paymentRepository.findResponsesByPayerId(payerId)).isEmpty();
+        create(payerId).andExpect(status().isCreated());
+        create(payerId).andExpect(status().isCreated());
+    }
+
+    private ResultActions batch(UUID... payerIds) throws Exception {
+        String payments = Arrays.stream(payerIds)
+                .map(payerId -> "{\"payerId\":\"" + payerId + "\",\"paymentSource\":\"PIX\",\"amount\":1.00}")
+                .collect(Collectors.joining(","));
+        return mockMvc.perform(post("/api/payments/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"payments\":[" + payments + "]}"));
+    }
+
+    private ResultActions create(UUID payerId) throws Exception {
+        return mockMvc.perform(post("/api/payments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"payerId\":\"" + payerId + "\",\"paymentSource\":\"PIX\",\"amount\":1.00}"));
+    }
+
+    private ResultActions create(UUID payerId, String idempotencyKey) throws Exception {
+        return mockMvc.perform(post("/api/payments")
+                .header("Idempotency-Key", idempotencyKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"payerId\":\"" + payerId + "\",\"paymentSource\":\"PIX\",\"amount\":1.00}"));
+    }
+}
@@ -0,0 +1,148 @@
+package com.eliasnogueira.paymentservice.integration;
+
+import com.eliasnogueira.paymentservice.dto.PaymentRequest;
+import com.eliasnogueira.paymentservice.dto.PaymentResponse;
+import com.eliasnogueira.paymentservice.dto.PaymentUpdateRequest;
+import com.eliasnogueira.paymentservice.model.enums.PaymentSource;
+import com.eliasnogueira.paymentservice.model.enums.PaymentStatus;
+import com.eliasnogueira.paymentservice.repository.PaymentRepository;
+import com.eliasnogueira.paymentservice.service.DailyTotalLedger;
+import com.eliasnogueira.paymentservice.service.PaymentCache;
+import com.eliasnogueira.paymentservice.service.PaymentService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Two in-memory H2 databases stand in for the primary and the replica. Nothing replicates between them, so a row is
+ * only visible on the database the routing sent it to.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary",
+        "payment.datasource.replica.url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1"
+})
+@AutoConfigureMockMvc
+public class ReadReplicaRoutingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentCache paymentCache;
+
+    @Autowired
+    private DailyTotalLedger dailyTotalLedger;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    private static boolean replicaSchemaCreated;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    void setUp() {
+        // inside a read-only transaction the schema export runs against the replica
+        var readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> entityManagerFactory.unwrap(SessionFactory.class)
+                .getSchemaManager().exportMappedObjects(true));
+
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        replica.update("DELETE FROM payments");
+        paymentRepository.deleteAll();
+        dailyTotalLedger.rebuild();
+    }
+
+    @Test
+    @DisplayName("Should write payments to the primary only")
+    void shouldWriteToPrimary() {
+        paymentService.createPayment(new PaymentRequest(UUID.randomUUID(), PaymentSource.PIX, BigDecimal.TEN));
+
+        assertThat(primary.queryForObject("SELECT COUNT(*) FROM payments", Long.class)).isEqualTo(1);
+        assertThat(replica.queryForObject("SELECT COUNT(*) FROM payments", Long.class)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should serve read-only endpoints from the replica")
+    void shouldReadFromReplica() throws Exception {
+        UUID payerId = UUID.randomUUID();
+        paymentService.createPayment(new PaymentRequest(payerId, PaymentSource.PIX, BigDecimal.TEN));
+        replica.update("INSERT INTO payments (id, payer_id, payment_source, amount, status, created_at, version) "
+                + "VALUES (42, ?, 'CREDIT_CARD', 99.90, 'PAID', CURRENT_TIMESTAMP, 0)", payerId);
+
+        mockMvc.perform(get("/api/payments/payer/{payerId}", payerId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(42))
+                .andExpect(jsonPath("$[0].status").value("PAID"));
+    }
+
+    @Test
+    @DisplayName("Should read a payment the replica has not received yet from the primary")
+    void shouldReadYourWritesFromPrimary() throws Exception {
+        PaymentResponse created = paymentService.createPayment(
+                new PaymentRequest(UUID.randomUUID(), PaymentSource.PIX, BigDecimal.TEN));
+        paymentCache.invalidate(created.getId());
+
+        mockMvc.perform(get("/api/payments/{id}", created.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(created.getId()));
+    }
+
+    @Test
+    @DisplayName("Should not cache a payment the replica has an older version of")
+    void shouldLoadCacheFromPrimary() throws Exception {
+        PaymentResponse created = paymentService.createPayment(
+                new PaymentRequest(UUID.randomUUID(), PaymentSource.PIX, BigDecimal.TEN));
+        replica.update("INSERT INTO payments (id, payer_id, payment_source, amount, status, created_at, version) "
+                + "VALUES (?, ?, 'PIX', 10.00, 'PENDING', CURRENT_TIMESTAMP, 0)",
+                created.getId(), created.getPayerId());
+        paymentService.updatePayment(created.getId(),
+                PaymentUpdateRequest.builder().status(PaymentStatus.PAID).build());
+        paymentCache.invalidate(created.getId());
+
+        mockMvc.perform(get("/api/payments/{id}", created.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("PAID"))
+                .andExpect(jsonPath("$.version").value(1));
+    }
+}
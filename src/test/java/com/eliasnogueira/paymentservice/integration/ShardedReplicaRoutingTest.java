@@ -0,0 +1,142 @@
+package com.eliasnogueira.paymentservice.integration;
+
+import com.eliasnogueira.paymentservice.PaymentServiceApplication;
+import com.eliasnogueira.paymentservice.config.ShardRoutingDataSource;
+import com.eliasnogueira.paymentservice.dto.PaymentRequest;
+import com.eliasnogueira.paymentservice.model.enums.PaymentSource;
+import com.eliasnogueira.paymentservice.model.id.ShardedIds;
+import com.eliasnogueira.paymentservice.service.DailyTotalLedger;
+import com.eliasnogueira.paymentservice.service.PaymentService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Two shards with a replica each, all four in-memory H2 databases. Nothing replicates between them, so a row is only
+ * visible on the database the routing sent it to.
+ */
+@SpringBootTest(properties = {
+        "payment.sharding.shards[0].url=jdbc:h2:mem:sharded-0;DB_CLOSE_DELAY=-1",
+        "payment.sharding.shards[0].replica-url=jdbc:h2:mem:sharded-0-replica;DB_CLOSE_DELAY=-1",
+        "payment.sharding.shards[1].url=jdbc:h2:mem:sharded-1;DB_CLOSE_DELAY=-1",
+        "payment.sharding.shards[1].replica-url=jdbc:h2:mem:sharded-1-replica;DB_CLOSE_DELAY=-1",
+        "payment.sharding.username=sa",
+        "payment.sharding.password=password"
+})
+@AutoConfigureMockMvc
+public class ShardedReplicaRoutingTest {
+
+    private static final int SHARDS = 2;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private DailyTotalLedger dailyTotalLedger;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<JdbcTemplate> primaries = databases("");
+    private final List<JdbcTemplate> replicas = databases("-replica");
+
+    @BeforeEach
+    void setUp() {
+        // inside a read-only transaction the schema export runs against the shard's replica
+        var readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        for (int shard = 0; shard < SHARDS; shard++) {
+            ShardRoutingDataSource.onShard(shard, () -> readOnly.execute(status -> {
+                entityManagerFactory.unwrap(SessionFactory.class).getSchemaManager().exportMappedObjects(true);
+                return null;
+            }));
+        }
+
+        primaries.forEach(primary -> primary.update("DELETE FROM payments"));
+        replicas.forEach(replica -> replica.update("DELETE FROM payments"));
+        dailyTotalLedger.rebuild();
+    }
+
+    @Test
+    @DisplayName("Should write a payment to the primary of its payer's shard only")
+    void shouldWriteToShardPrimary() {
+        UUID payerId = UUID.randomUUID();
+        int shard = ShardedIds.shardOf(payerId, SHARDS);
+
+        paymentService.createPayment(new PaymentRequest(payerId, PaymentSource.PIX, BigDecimal.TEN));
+
+        assertThat(count(primaries.get(shard))).isEqualTo(1);
+        assertThat(count(primaries.get(1 - shard))).isZero();
+        assertThat(replicas).allSatisfy(replica -> assertThat(count(replica)).isZero());
+    }
+
+    @Test
+    @DisplayName("Should serve a payer's payments from the replica of its shard")
+    void shouldReadFromShardReplica() throws Exception {
+        UUID payerId = UUID.randomUUID();
+        int shard = ShardedIds.shardOf(payerId, SHARDS);
+        paymentService.createPayment(new PaymentRequest(payerId, PaymentSource.PIX, BigDecimal.TEN));
+        replicas.get(shard).update("INSERT INTO payments (id, payer_id, payment_source, amount, status, created_at, "
+                + "version) VALUES (42, ?, 'CREDIT_CARD', 99.90, 'PAID', CURRENT_TIMESTAMP, 0)", payerId);
+
+        mockMvc.perform(get("/api/payments/payer/{payerId}", payerId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(42));
+    }
+
+    @Test
+    @DisplayName("Should refuse to start with the single datasource replica and shards both configured")
+    void shouldRejectSingleReplicaWithShards() {
+        var application = new SpringApplicationBuilder(PaymentServiceApplication.class)
+                .web(WebApplicationType.NONE);
+
+        assertThatThrownBy(() -> application.run(
+                "--payment.sharding.shards[0].url=jdbc:h2:mem:conflict-0",
+                "--payment.datasource.replica.url=jdbc:h2:mem:conflict-replica",
+                "--spring.jpa.show-sql=false"))
+                .rootCause()
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("payment.sharding.shards[n].replica-url");
+    }
+
+    private static List<JdbcTemplate> databases(String suffix) {
+        return IntStream.range(0, SHARDS)
+                .mapToObj(shard -> new JdbcTemplate(new DriverManagerDataSource(
+                        "jdbc:h2:mem:sharded-" + shard + suffix + ";DB_CLOSE_DELAY=-1", "sa", "password")))
+                .toList();
+    }
+
+    private static long count(JdbcTemplate database) {
+        return database.queryForObject("SELECT COUNT(*) FROM payments", Long.class);
+    }
+}
@@ -0,0 +1,166 @@
+package com.eliasnogueira.paymentservice.integration;
+
+import com.eliasnogueira.paymentservice.PaymentServiceApplication;
+import com.eliasnogueira.paymentservice.dto.PaymentPage;
+import com.eliasnogueira.paymentservice.dto.PaymentRequest;
+import com.eliasnogueira.paymentservice.dto.PaymentResponse;
+import com.eliasnogueira.paymentservice.model.enums.PaymentSource;
+import com.eliasnogueira.paymentservice.model.id.ShardedIds;
+import com.eliasnogueira.paymentservice.service.DailyTotalLedger;
+import com.eliasnogueira.paymentservice.service.PayerSummaryStore;
+import com.eliasnogueira.paymentservice.service.PaymentService;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Three in-memory H2 databases act as the shards.
+ */
+@SpringBootTest(properties = {
+        "payment.sharding.shards[0].url=jdbc:h2:mem:shard-0;DB_CLOSE_DELAY=-1",
+        "payment.sharding.shards[1].url=jdbc:h2:mem:shard-1;DB_CLOSE_DELAY=-1",
+        "payment.sharding.shards[2].url=jdbc:h2:mem:shard-2;DB_CLOSE_DELAY=-1",
+        "payment.sharding.username=sa",
+        "payment.sharding.password=password"
+})
+@AutoConfigureMockMvc
+public class ShardingIntegrationTest {
+
+    private static final int SHARDS = 3;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private DailyTotalLedger dailyTotalLedger;
+
+    @Autowired
+    private PayerSummaryStore payerSummaryStore;
+
+    private final List<JdbcTemplate> shards = IntStream.range(0, SHARDS)
+            .mapToObj(shard -> new JdbcTemplate(new DriverManagerDataSource(
+                    "jdbc:h2:mem:shard-" + shard + ";DB_CLOSE_DELAY=-1", "sa", "password")))
+            .toList();
+
+    @BeforeEach
+    void cleanUpShards() {
+        shards.forEach(shard -> {
+            shard.update("DELETE FROM idempotency_keys");
+            shard.update("DELETE FROM payments");
+        });
+        dailyTotalLedger.rebuild();
+        payerSummaryStore.rebuild();
+    }
+
+    @Test
+    @DisplayName("Should store each payment on the shard of its payer, with the shard encoded in its id")
+    void shouldStorePaymentsOnThePayerShard() throws Exception {
+        for (int i = 0; i < 30; i++) {
+            UUID payerId = UUID.randomUUID();
+            String body = mockMvc.perform(post("/api/payments").contentType(MediaType.APPLICATION_JSON)
+                            .content(paymentJson(payerId)))
+                    .andExpect(status().isCreated())
+                    .andReturn().getResponse().getContentAsString();
+            long id = ((Number) JsonPath.read(body, "$.id")).longValue();
+
+            assertThat(ShardedIds.shardOf(id, SHARDS)).isEqualTo(ShardedIds.shardOf(payerId, SHARDS));
+        }
+
+        for (int shard = 0; shard < SHARDS; shard++) {
+            var payerIds = shards.get(shard).queryForList("SELECT CAST(payer_id AS VARCHAR) FROM payments", String.class);
+            int expectedShard = shard;
+            assertThat(payerIds).allSatisfy(payerId ->
+                    assertThat(ShardedIds.shardOf(UUID.fromString(payerId), SHARDS)).isEqualTo(expectedShard));
+        }
+        assertThat(shards).allSatisfy(shard ->
+                assertThat(shard.queryForObject("SELECT COUNT(*) FROM payments", Long.class)).isPositive());
+    }
+
+    @Test
+    @DisplayName("Should read payments by id and by payer from their shard")
+    void shouldReadFromThePayerShard() throws Exception {
+        UUID payerId = UUID.randomUUID();
+        var created = paymentService.createPayment(new PaymentRequest(payerId, PaymentSource.PIX, BigDecimal.TEN));
+
+        mockMvc.perform(get("/api/payments/{id}", created.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.payerId").value(payerId.toString()));
+        mockMvc.perform(get("/api/payments/payer/{payerId}", payerId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(created.getId()));
+    }
+
+    @Test
+    @DisplayName("Should split a batch across shards and page through all of them in id order")
+    void shouldPageAcrossShards() throws Exception {
+        String payments = IntStream.range(0, 20)
+                .mapToObj(i -> "{\"payerId\":\"" + UUID.randomUUID() + "\",\"paymentSource\":\"PIX\",\"amount\":10.00}")
+                .collect(Collectors.joining(","));
+        mockMvc.perform(post("/api/payments/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"payments\":[" + payments + "]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(20));
+
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            PaymentPage page = paymentService.getAllPayments(cursor, 6);
+            page.getItems().stream().map(PaymentResponse::getId).forEach(ids::add);
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(ids).hasSize(20).isSorted().doesNotHaveDuplicates();
+    }
+
+    @Test
+    @DisplayName("Should migrate an existing shard whose schema predates an entity change")
+    void shouldMigrateEveryShard() {
+        var legacy = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:legacy-1;DB_CLOSE_DELAY=-1", "sa", "password"));
+        legacy.execute("CREATE TABLE payments (id BIGINT PRIMARY KEY, payer_id UUID NOT NULL, "
+                + "payment_source VARCHAR(20) NOT NULL, amount NUMERIC(19, 2) NOT NULL, status VARCHAR(20) NOT NULL, "
+                + "created_at TIMESTAMP NOT NULL)");
+
+        try (var ignored = new SpringApplicationBuilder(PaymentServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--payment.sharding.shards[0].url=jdbc:h2:mem:legacy-0;DB_CLOSE_DELAY=-1",
+                        "--payment.sharding.shards[1].url=jdbc:h2:mem:legacy-1;DB_CLOSE_DELAY=-1",
+                        "--payment.sharding.username=sa",
+                        "--payment.sharding.password=password",
+                        "--spring.jpa.show-sql=false")) {
+            assertThat(legacy.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS "
+                    + "WHERE TABLE_NAME = 'PAYMENTS' AND COLUMN_NAME = 'VERSION'", Long.class)).isEqualTo(1);
+        }
+    }
+
+    private static String paymentJson(UUID payerId) {
+        return "{\"payerId\":\"" + payerId + "\",\"paymentSource\":\"PIX\",\"amount\":10.00}";
+    }
+}
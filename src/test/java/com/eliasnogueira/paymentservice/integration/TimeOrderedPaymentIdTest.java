@@ -0,0 +1,40 @@
+package com.eliasnogueira.paymentservice.integration;
+
+import com.eliasnogueira.paymentservice.dto.PaymentRequest;
+import com.eliasnogueira.paymentservice.model.enums.PaymentSource;
+import com.eliasnogueira.paymentservice.model.id.TimeOrderedIds;
+import com.eliasnogueira.paymentservice.service.PaymentService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest(properties = {
+        "payment.id.strategy=time-ordered",
+        "payment.id.node-id=7"
+})
+public class TimeOrderedPaymentIdTest {
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Test
+    @DisplayName("Should assign time-ordered ids from this node when configured")
+    void shouldAssignTimeOrderedIds() {
+        var request = new PaymentRequest(UUID.randomUUID(), PaymentSource.PIX, new BigDecimal("10.00"));
+
+        var first = paymentService.createPayment(request);
+        var second = paymentService.createPayment(request);
+
+        assertThat(second.getId()).isGreaterThan(first.getId());
+        assertThat(TimeOrderedIds.nodeId(first.getId())).isEqualTo(7);
+        assertThat(TimeOrderedIds.timestampMillis(first.getId())).isCloseTo(System.currentTimeMillis(), within(60_000L));
+        assertThat(paymentService.getPaymentById(second.getId()).getId()).isEqualTo(second.getId());
+    }
+}
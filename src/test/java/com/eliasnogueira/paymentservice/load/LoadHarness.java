@@ -0,0 +1,118 @@
+package com.eliasnogueira.paymentservice.load;
+
+import com.eliasnogueira.paymentservice.PaymentServiceApplication;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * What the load tests share: the application on a random port with an in-memory database, an HTTP client on virtual
+ * threads, closed-loop users and latencies in microseconds recorded in HDR histograms.
+ */
+final class LoadHarness {
+
+    static final Path REPORT_DIR = Path.of("target", "load-report");
+
+    private LoadHarness() {
+    }
+
+    static ConfigurableApplicationContext start(String database, String... arguments) {
+        var common = Stream.of("--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:" + database,
+                "--spring.jpa.show-sql=false",
+                "--payment.rate-limit.enabled=false",
+                "--logging.level.com.eliasnogueira.paymentservice=WARN",
+                "--logging.level.org.springframework.http.converter.json=WARN");
+        return new SpringApplicationBuilder(PaymentServiceApplication.class)
+                .run(Stream.concat(common, Arrays.stream(arguments)).toArray(String[]::new));
+    }
+
+    static String baseUrl(ConfigurableApplicationContext context) {
+        return "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+    }
+
+    static HttpClient client() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    /**
+     * Runs the users, each repeating the iteration until the duration is over, and returns what they recorded.
+     */
+    static Run closedLoop(int users, Duration duration, Consumer<Recorder> iteration) throws Exception {
+        var recorder = new Recorder(3);
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < users; i++) {
+                futures.add(executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        iteration.accept(recorder);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        return new Run(recorder.getIntervalHistogram(), (System.nanoTime() - start) / 1_000_000_000.0);
+    }
+
+    static long timedMicros(HttpClient client, HttpRequest request, int expectedStatus, AtomicLong errors) {
+        long start = System.nanoTime();
+        try {
+            var response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != expectedStatus) {
+                errors.incrementAndGet();
+            }
+        } catch (Exception e) {
+            errors.incrementAndGet();
+        }
+        return (System.nanoTime() - start) / 1_000;
+    }
+
+    static void writeDistribution(String name, Histogram histogram) throws IOException {
+        Files.createDirectories(REPORT_DIR);
+        try (var out = new PrintStream(Files.newOutputStream(REPORT_DIR.resolve(name + ".hgrm")))) {
+            histogram.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    record Run(Histogram histogram, double seconds) {
+
+        double throughput() {
+            return histogram.getTotalCount() / seconds;
+        }
+
+        double millis(double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1000.0;
+        }
+
+        double maxMillis() {
+            return histogram.getMaxValue() / 1000.0;
+        }
+    }
+}
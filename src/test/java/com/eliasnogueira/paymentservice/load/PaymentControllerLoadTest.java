@@ -0,0 +1,229 @@
+package com.eliasnogueira.paymentservice.load;
+
+import com.jayway.jsonpath.JsonPath;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives every {@code PaymentController} endpoint over HTTP against the application on a random port, once per payer
+ * mix, and records latencies in HDR histograms. Excluded from the default build, run it with
+ * {@code ./mvnw test -Pload-test -Dtest=PaymentControllerLoadTest}.
+ * <p>
+ * Tunable through system properties: {@code load.concurrency}, {@code load.duration-seconds}, {@code load.mixes}
+ * ({@code cold}, {@code hot}), {@code load.endpoints}, {@code load.hot-payers}, {@code load.hot-share} and
+ * {@code load.cold-payers}. The summary and one {@code .hgrm} percentile distribution per run are written to
+ * {@code target/load-report}. Users are closed-loop, so latencies do not include the queueing a fixed arrival rate
+ * would add.
+ */
+@Slf4j
+@Tag("load")
+public class PaymentControllerLoadTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 64);
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("load.duration-seconds", 10));
+    private static final int HOT_PAYERS = Integer.getInteger("load.hot-payers", 10);
+    private static final double HOT_SHARE = Double.parseDouble(System.getProperty("load.hot-share", "0.9"));
+    private static final int COLD_PAYERS = Integer.getInteger("load.cold-payers", 100_000);
+    private static final List<String> MIXES = List.of(System.getProperty("load.mixes", "cold,hot").split(","));
+    private static final List<Endpoint> ENDPOINTS = Arrays.stream(
+                    System.getProperty("load.endpoints", String.join(",", names(Endpoint.values()))).split(","))
+            .map(Endpoint::valueOf)
+            .toList();
+    private static final int SEEDED_PAYMENTS = 2_000;
+
+    private static ConfigurableApplicationContext context;
+    private static HttpClient client;
+    private static String baseUrl;
+    private static long[] paymentIds;
+    private static final List<Result> RESULTS = new ArrayList<>();
+
+    @BeforeAll
+    static void startApplication() throws Exception {
+        context = LoadHarness.start("controller-load");
+        baseUrl = LoadHarness.baseUrl(context);
+        client = LoadHarness.client();
+        paymentIds = seedPayments();
+    }
+
+    @AfterAll
+    static void writeReport() throws IOException {
+        Files.createDirectories(LoadHarness.REPORT_DIR);
+        String summary = Result.HEADER + System.lineSeparator() + RESULTS.stream()
+                .map(Result::toString)
+                .collect(Collectors.joining(System.lineSeparator()));
+        Files.writeString(LoadHarness.REPORT_DIR.resolve("summary.txt"), summary + System.lineSeparator());
+        log.info("Load test summary ({} users, {} s per run):{}{}", CONCURRENCY, DURATION.toSeconds(),
+                System.lineSeparator(), summary);
+
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should serve every endpoint under load for each payer mix without errors")
+    void shouldDriveEveryEndpoint() throws Exception {
+        for (String mix : MIXES) {
+            var payers = PayerMix.named(mix);
+            for (Endpoint endpoint : ENDPOINTS) {
+                var result = drive(payers, endpoint);
+                RESULTS.add(result);
+                log.info("{}", result);
+            }
+        }
+
+        assertThat(RESULTS).allSatisfy(result -> assertThat(result.errors()).isZero());
+    }
+
+    private static Result drive(PayerMix payers, Endpoint endpoint) throws Exception {
+        var errors = new AtomicLong();
+        var run = LoadHarness.closedLoop(CONCURRENCY, DURATION, recorder -> {
+            var request = endpoint.request(payers.next(), randomPaymentId());
+            recorder.recordValue(LoadHarness.timedMicros(client, request, endpoint.expectedStatus, errors));
+        });
+
+        LoadHarness.writeDistribution(payers.name() + "-" + endpoint.name().toLowerCase(), run.histogram());
+        return new Result(payers.name(), endpoint, errors.get(), run);
+    }
+
+    private static long[] seedPayments() throws Exception {
+        var ids = new ArrayList<Long>();
+        var seedPayers = PayerMix.named("cold");
+
+        while (ids.size() < SEEDED_PAYMENTS) {
+            var response = client.send(Endpoint.BATCH.request(seedPayers.next(), 0), HttpResponse.BodyHandlers.ofString());
+            List<Number> created = JsonPath.read(response.body(), "$.results[*].payment.id");
+            created.forEach(id -> ids.add(id.longValue()));
+        }
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static long randomPaymentId() {
+        return paymentIds[ThreadLocalRandom.current().nextInt(paymentIds.length)];
+    }
+
+    private static String[] names(Endpoint[] endpoints) {
+        return Arrays.stream(endpoints).map(Enum::name).toArray(String[]::new);
+    }
+
+    private static String paymentJson(UUID payerId) {
+        return "{\"payerId\":\"" + payerId + "\",\"paymentSource\":\"PIX\",\"amount\":0.01}";
+    }
+
+    private enum Endpoint {
+        CREATE(201) {
+            HttpRequest request(UUID payerId, long paymentId) {
+                return json("/api/payments").POST(HttpRequest.BodyPublishers.ofString(paymentJson(payerId))).build();
+            }
+        },
+        BATCH(200) {
+            HttpRequest request(UUID payerId, long paymentId) {
+                String payments = IntStream.range(0, 10)
+                        .mapToObj(i -> paymentJson(payerId))
+                        .collect(Collectors.joining(","));
+                return json("/api/payments/batch")
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"payments\":[" + payments + "]}")).build();
+            }
+        },
+        GET_BY_ID(200) {
+            HttpRequest request(UUID payerId, long paymentId) {
+                return get("/api/payments/" + paymentId);
+            }
+        },
+        PAGE(200) {
+            HttpRequest request(UUID payerId, long paymentId) {
+                return get("/api/payments?limit=50");
+            }
+        },
+        BY_PAYER(200) {
+            HttpRequest request(UUID payerId, long paymentId) {
+                return get("/api/payments/payer/" + payerId);
+            }
+        },
+        UPDATE(200) {
+            HttpRequest request(UUID payerId, long paymentId) {
+                return json("/api/payments/" + paymentId)
+                        .PUT(HttpRequest.BodyPublishers.ofString("{\"status\":\"PAID\"}")).build();
+            }
+        },
+        EXPORT(200) {
+            HttpRequest request(UUID payerId, long paymentId) {
+                return get("/api/payments/export?format=CSV&from=" + LocalDateTime.now().minusSeconds(1));
+            }
+        };
+
+        private final int expectedStatus;
+
+        Endpoint(int expectedStatus) {
+            this.expectedStatus = expectedStatus;
+        }
+
+        abstract HttpRequest request(UUID payerId, long paymentId);
+
+        private static HttpRequest.Builder json(String path) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path)).header("Content-Type", "application/json");
+        }
+
+        private static HttpRequest get(String path) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+        }
+    }
+
+    /**
+     * {@code cold} spreads requests evenly over many payers, {@code hot} sends most of them to a handful of payers.
+     */
+    private record PayerMix(String name, double hotShare) {
+
+        static PayerMix named(String name) {
+            return switch (name) {
+                case "cold" -> new PayerMix(name, 0);
+                case "hot" -> new PayerMix(name, HOT_SHARE);
+                default -> throw new IllegalArgumentException("Unknown payer mix: " + name);
+            };
+        }
+
+        UUID next() {
+            var random = ThreadLocalRandom.current();
+            return random.nextDouble() < hotShare
+                    ? new UUID(1, random.nextInt(HOT_PAYERS))
+                    : new UUID(0, random.nextInt(COLD_PAYERS));
+        }
+    }
+
+    private record Result(String mix, Endpoint endpoint, long errors, LoadHarness.Run run) {
+
+        static final String HEADER = "%-5s %-10s %10s %7s %10s %9s %9s %9s %9s"
+                .formatted("mix", "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+
+        @Override
+        public String toString() {
+            return "%-5s %-10s %10d %7d %10.0f %9.2f %9.2f %9.2f %9.2f".formatted(mix, endpoint,
+                    run.histogram().getTotalCount(), errors, run.throughput(), run.millis(50), run.millis(99),
+                    run.millis(99.9), run.maxMillis());
+        }
+    }
+}
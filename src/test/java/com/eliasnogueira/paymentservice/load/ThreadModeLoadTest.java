@@ -0,0 +1,78 @@
+package com.eliasnogueira.paymentservice.load;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares throughput and p99 latency of the platform-thread and virtual-thread modes. Excluded from the default
+ * build, run it with {@code ./mvnw test -Pload-test}. Concurrency and duration can be tuned with the
+ * {@code load.concurrency} and {@code load.duration-seconds} system properties. Latencies go to HDR histograms as
+ * in {@link PaymentControllerLoadTest}, with one {@code .hgrm} distribution per mode in {@code target/load-report}.
+ */
+@Slf4j
+@Tag("load")
+public class ThreadModeLoadTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 200);
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("load.duration-seconds", 15));
+    private static final int PAYERS = 5_000;
+
+    @Test
+    @DisplayName("Should serve the same load with platform and virtual threads")
+    void shouldCompareThreadModes() throws Exception {
+        var platform = run(false);
+        var virtual = run(true);
+
+        log.info("{}", platform);
+        log.info("{}", virtual);
+        assertThat(platform.errors()).isZero();
+        assertThat(virtual.errors()).isZero();
+    }
+
+    private static Result run(boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        try (var context = LoadHarness.start("load-" + mode, "--spring.threads.virtual.enabled=" + virtualThreads)) {
+            String baseUrl = LoadHarness.baseUrl(context);
+            var client = LoadHarness.client();
+            var errors = new AtomicLong();
+
+            var run = LoadHarness.closedLoop(CONCURRENCY, DURATION, recorder -> {
+                UUID payerId = new UUID(0, ThreadLocalRandom.current().nextInt(PAYERS));
+                String body = "{\"payerId\":\"" + payerId + "\",\"paymentSource\":\"PIX\",\"amount\":0.01}";
+
+                var create = HttpRequest.newBuilder(URI.create(baseUrl + "/api/payments"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+                var byPayer = HttpRequest.newBuilder(URI.create(baseUrl + "/api/payments/payer/" + payerId))
+                        .GET().build();
+
+                recorder.recordValue(LoadHarness.timedMicros(client, create, 201, errors));
+                recorder.recordValue(LoadHarness.timedMicros(client, byPayer, 200, errors));
+            });
+
+            LoadHarness.writeDistribution("threads-" + mode, run.histogram());
+            return new Result(mode, errors.get(), run);
+        }
+    }
+
+    private record Result(String mode, long errors, LoadHarness.Run run) {
+
+        @Override
+        public String toString() {
+            return ("%-8s threads: %d requests, %d errors, %.0f req/s, p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, "
+                    + "max %.2f ms").formatted(mode, run.histogram().getTotalCount(), errors, run.throughput(),
+                    run.millis(50), run.millis(99), run.millis(99.9), run.maxMillis());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.eliasnogueira.paymentservice.unit;
+
+import com.eliasnogueira.paymentservice.config.ShardingProperties;
+import com.eliasnogueira.paymentservice.model.MinorUnits;
+import com.eliasnogueira.paymentservice.repository.PayerDailyTotal;
+import com.eliasnogueira.paymentservice.repository.PaymentRepository;
+import com.eliasnogueira.paymentservice.service.DailyTotalLedger;
+import com.eliasnogueira.paymentservice.service.PaymentShards;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class DailyTotalLedgerTest {
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    @Test
+    @DisplayName("Should rebuild the daily totals from the database")
+    void shouldRebuildFromDatabase() {
+        UUID payerId = UUID.randomUUID();
+        when(paymentRepository.sumPaymentsByPayerForPeriod(any(), any()))
+                .thenReturn(List.of(payerTotal(payerId, new BigDecimal("300.00"))));
+
+        var ledger = ledger(DailyTotalLedger.Mode.LEDGER);
+        ledger.rebuild();
+
+        assertThat(ledger.dailyTotal(payerId, LocalDate.now())).isEqualTo(cents("300.00"));
+        assertThat(ledger.dailyTotal(UUID.randomUUID(), LocalDate.now())).isZero();
+    }
+
+    @Test
+    @DisplayName("Should reserve payments without querying the database")
+    void shouldReservePaymentsInMemory() {
+        UUID payerId = UUID.randomUUID();
+        LocalDate today = LocalDate.now();
+        var ledger = ledger(DailyTotalLedger.Mode.LEDGER);
+
+        assertThat(ledger.reserve(payerId, today, cents("100.00"))).isTrue();
+        assertThat(ledger.reserve(payerId, today, cents("50.50"))).isTrue();
+
+        assertThat(ledger.dailyTotal(payerId, today)).isEqualTo(cents("150.50"));
+        verify(paymentRepository, never()).sumPaymentsByPayerIdAndDate(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should refuse a reservation over the daily limit")
+    void shouldRefuseReservationOverLimit() {
+        UUID payerId = UUID.randomUUID();
+        LocalDate today = LocalDate.now();
+        var ledger = ledger(DailyTotalLedger.Mode.LEDGER);
+
+        assertThat(ledger.reserve(payerId, today, cents("1900.00"))).isTrue();
+        assertThat(ledger.reserve(payerId, today, cents("100.01"))).isFalse();
+
+        assertThat(ledger.dailyTotal(payerId, today)).isEqualTo(cents("1900.00"));
+    }
+
+    @Test
+    @DisplayName("Should evict the days that are over")
+    void shouldEvictExpiredDays() {
+        UUID payerId = UUID.randomUUID();
+        LocalDate today = LocalDate.now();
+        LocalDate yesterday = today.minusDays(1);
+        var ledger = ledger(DailyTotalLedger.Mode.LEDGER);
+
+        ledger.reserve(payerId, yesterday, cents("100.00"));
+        ledger.reserve(payerId, today, cents("20.00"));
+        ledger.evictExpiredDays();
+
+        assertThat(ledger.dailyTotal(payerId, yesterday)).isZero();
+        assertThat(ledger.dailyTotal(payerId, today)).isEqualTo(cents("20.00"));
+    }
+
+    @Test
+    @DisplayName("Should decide on the database total when verifying the ledger")
+    void shouldUseDatabaseTotalInVerifyMode() {
+        UUID payerId = UUID.randomUUID();
+        when(paymentRepository.sumPaymentsByPayerIdAndDate(any(), any(), any()))
+                .thenReturn(new BigDecimal("1950.00"));
+        var ledger = ledger(DailyTotalLedger.Mode.VERIFY);
+
+        assertThat(ledger.reserve(payerId, LocalDate.now(), cents("100.00"))).isFalse();
+        assertThat(ledger.dailyTotal(payerId, LocalDate.now())).isZero();
+    }
+
+    private static long cents(String amount) {
+        return MinorUnits.of(new BigDecimal(amount));
+    }
+
+    private DailyTotalLedger ledger(DailyTotalLedger.Mode mode) {
+        var paymentShards = new PaymentShards(new ShardingProperties(List.of(), null, null), new TransactionTemplate(),
+                new SimpleAsyncTaskExecutor());
+        return new DailyTotalLedger(paymentRepository, paymentShards, mode, 16);
+    }
+
+    private static PayerDailyTotal payerTotal(UUID payerId, BigDecimal total) {
+        return new PayerDailyTotal() {
+            @Override
+            public UUID getPayerId() {
+                return payerId;
+            }
+
+            @Override
+            public BigDecimal getTotal() {
+                return total;
+            }
+        };
+    }
+}
@@ -0,0 +1,43 @@
+package com.eliasnogueira.paymentservice.unit;
+
+import com.eliasnogueira.paymentservice.exceptions.PaymentLimitException;
+import com.eliasnogueira.paymentservice.model.MinorUnits;
+import com.eliasnogueira.paymentservice.validator.PaymentLimitValidator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MinorUnitsTest {
+
+    @Test
+    @DisplayName("Should convert amounts to cents and back without losing precision")
+    void shouldConvertExactly() {
+        assertThat(MinorUnits.of(new BigDecimal("1500.75"))).isEqualTo(150_075L);
+        assertThat(MinorUnits.of(new BigDecimal("10"))).isEqualTo(1_000L);
+        assertThat(MinorUnits.of(new BigDecimal("0.500"))).isEqualTo(50L);
+        assertThat(MinorUnits.toBigDecimal(150_075L)).isEqualTo(new BigDecimal("1500.75"));
+    }
+
+    @Test
+    @DisplayName("Should refuse amounts with fractions of a cent or that do not fit in a long")
+    void shouldRefuseInexactAmounts() {
+        assertThatThrownBy(() -> MinorUnits.of(new BigDecimal("10.001")))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> MinorUnits.of(new BigDecimal("92233720368547758.08")))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    @DisplayName("Should apply the daily limit to amounts in cents")
+    void shouldApplyLimitToCents() {
+        assertThat(PaymentLimitValidator.isWithinLimit(200_000L)).isTrue();
+        assertThat(PaymentLimitValidator.isWithinLimit(200_001L)).isFalse();
+        assertThatThrownBy(() -> PaymentLimitValidator.isWithinLimit(0L))
+                .isInstanceOf(PaymentLimitException.class)
+                .hasMessage("Amount must be greater than zero");
+    }
+}
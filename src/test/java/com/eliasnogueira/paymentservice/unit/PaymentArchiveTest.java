@@ -0,0 +1,85 @@
+package com.eliasnogueira.paymentservice.unit;
+
+import com.eliasnogueira.paymentservice.model.Payment;
+import com.eliasnogueira.paymentservice.model.enums.PaymentSource;
+import com.eliasnogueira.paymentservice.model.enums.PaymentStatus;
+import com.eliasnogueira.paymentservice.repository.PaymentArchive;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PaymentArchiveTest {
+
+    private static final UUID PAYER = UUID.fromString("7c9e6679-7425-40de-944b-e07fc1f90ae7");
+    private static final UUID OTHER_PAYER = UUID.fromString("16fd2706-8baf-433b-82eb-8c7fada847da");
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    @DisplayName("Should find archived payments by id and payer after reopening the archive")
+    void shouldReadSegmentsBack() {
+        // 1000 rows span several blocks, every tenth one belongs to PAYER
+        var payments = LongStream.rangeClosed(1, 1000)
+                .mapToObj(id -> payment(id, id % 10 == 0 ? PAYER : OTHER_PAYER, PaymentStatus.PAID))
+                .toList();
+        new PaymentArchive(directory).append(payments);
+
+        var archive = new PaymentArchive(directory);
+
+        assertThat(archive.segmentCount()).isEqualTo(1);
+        assertThat(archive.findById(512)).get().satisfies(payment -> {
+            assertThat(payment.getPayerId()).isEqualTo(OTHER_PAYER);
+            assertThat(payment.getAmount()).isEqualByComparingTo("10.25");
+            assertThat(payment.getStatus()).isEqualTo(PaymentStatus.PAID);
+            assertThat(payment.getCreatedAt()).isEqualTo(payments.get(511).getCreatedAt());
+            assertThat(payment.getVersion()).isEqualTo(2L);
+        });
+        assertThat(archive.findById(1001)).isEmpty();
+        assertThat(archive.findByPayerId(PAYER)).hasSize(100).allSatisfy(payment ->
+                assertThat(payment.getPayerId()).isEqualTo(PAYER));
+        assertThat(archive.findByPayerId(UUID.randomUUID())).isEmpty();
+
+        var rows = new AtomicInteger();
+        archive.forEach(payment -> rows.incrementAndGet());
+        assertThat(rows).hasValue(1000);
+    }
+
+    @Test
+    @DisplayName("Should prefer the newest segment and forget a dropped one")
+    void shouldPreferNewestSegment() {
+        var archive = new PaymentArchive(directory);
+        archive.append(List.of(payment(1, PAYER, PaymentStatus.PAID)));
+        var newest = archive.append(List.of(payment(1, PAYER, PaymentStatus.FRAUD)));
+
+        assertThat(archive.findById(1)).get().extracting(Payment::getStatus).isEqualTo(PaymentStatus.FRAUD);
+        assertThat(archive.findByPayerId(PAYER)).hasSize(1);
+
+        archive.drop(newest);
+
+        assertThat(archive.findById(1)).get().extracting(Payment::getStatus).isEqualTo(PaymentStatus.PAID);
+        assertThat(new PaymentArchive(directory).segmentCount()).isEqualTo(1);
+    }
+
+    private static Payment payment(long id, UUID payerId, PaymentStatus status) {
+        return Payment.builder()
+                .id(id)
+                .payerId(payerId)
+                .paymentSource(PaymentSource.PIX)
+                .amount(new BigDecimal("10.25"))
+                .status(status)
+                .createdAt(LocalDateTime.of(2025, 1, 1, 12, 0).plusNanos(id * 1_000))
+                .version(2L)
+                .build();
+    }
+}
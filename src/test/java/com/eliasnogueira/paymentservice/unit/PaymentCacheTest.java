@@ -0,0 +1,27 @@
+package com.eliasnogueira.paymentservice.unit;
+
+import com.eliasnogueira.paymentservice.dto.PaymentResponse;
+import com.eliasnogueira.paymentservice.model.enums.PaymentStatus;
+import com.eliasnogueira.paymentservice.service.PaymentCache;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PaymentCacheTest {
+
+    @Test
+    @DisplayName("Should keep the newer version when two updates are put in reverse order")
+    void shouldNotReplaceNewerVersion() {
+        var paymentCache = new PaymentCache(100, Duration.ofMinutes(1));
+        var paid = PaymentResponse.builder().id(1L).status(PaymentStatus.PAID).version(1L).build();
+        var fraud = PaymentResponse.builder().id(1L).status(PaymentStatus.FRAUD).version(2L).build();
+
+        paymentCache.putAfterCommit(fraud);
+        paymentCache.putAfterCommit(paid);
+
+        assertThat(paymentCache.getIfPresent(1L)).contains(fraud);
+    }
+}
@@ -0,0 +1,171 @@
+package com.eliasnogueira.paymentservice.unit;
+
+import com.eliasnogueira.paymentservice.model.Payment;
+import com.eliasnogueira.paymentservice.model.enums.PaymentSource;
+import com.eliasnogueira.paymentservice.model.enums.PaymentStatus;
+import com.eliasnogueira.paymentservice.repository.JournalRecord;
+import com.eliasnogueira.paymentservice.repository.PaymentJournal;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PaymentJournalTest {
+
+    private static final UUID PAYER = UUID.fromString("7c9e6679-7425-40de-944b-e07fc1f90ae7");
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    @DisplayName("Should replay every record in order across segments after reopening the journal")
+    void shouldReplayAcrossSegments() {
+        // 200 rows of about 70 bytes do not fit a 4KB segment
+        List<JournalRecord> records = new ArrayList<>();
+        LongStream.rangeClosed(1, 200).forEach(id -> records.add(new JournalRecord.Row(payment(id))));
+        records.add(new JournalRecord.StatusChange(7, PaymentStatus.PAID, 1));
+        records.add(new JournalRecord.Deleted(8));
+
+        var journal = open(new ArrayList<>());
+        records.forEach(journalRecord -> journal.awaitDurable(journal.append(List.of(journalRecord))));
+        journal.close();
+
+        List<JournalRecord> replayed = new ArrayList<>();
+        open(replayed).close();
+
+        assertThat(segments()).hasSizeGreaterThan(1);
+        assertThat(replayed).hasSize(records.size());
+        assertThat(replayed.get(41)).isInstanceOfSatisfying(JournalRecord.Row.class, row -> {
+            assertThat(row.payment().getId()).isEqualTo(42L);
+            assertThat(row.payment().getPayerId()).isEqualTo(PAYER);
+            assertThat(row.payment().getAmount()).isEqualByComparingTo("10.25");
+            assertThat(row.payment().getCreatedAt()).isEqualTo(payment(42).getCreatedAt());
+        });
+        assertThat(replayed.subList(200, 202)).containsExactly(records.get(200), records.get(201));
+    }
+
+    @Test
+    @DisplayName("Should discard a torn frame at the end and keep appending after the last intact one")
+    void shouldDiscardTornTail() throws IOException {
+        var journal = open(new ArrayList<>());
+        journal.append(List.of(new JournalRecord.Deleted(1)));
+        long end = journal.append(List.of(new JournalRecord.Deleted(2)));
+        journal.close();
+
+        // a crash in the middle of the second frame leaves its length but not all of its payload
+        try (var file = new RandomAccessFile(segments().getFirst().toFile(), "rw")) {
+            file.seek(end - 1);
+            file.write(0x7f);
+        }
+
+        List<JournalRecord> replayed = new ArrayList<>();
+        var reopened = open(replayed);
+        reopened.append(List.of(new JournalRecord.Deleted(3)));
+        reopened.close();
+        assertThat(replayed).containsExactly(new JournalRecord.Deleted(1));
+
+        replayed.clear();
+        open(replayed).close();
+        assertThat(replayed).containsExactly(new JournalRecord.Deleted(1), new JournalRecord.Deleted(3));
+    }
+
+    @Test
+    @DisplayName("Should replay the newest snapshot and the records after it, deleting the segments it covers")
+    void shouldReplayFromSnapshot() {
+        var journal = open(new ArrayList<>());
+        LongStream.rangeClosed(1, 200).forEach(id -> journal.append(List.of(new JournalRecord.Row(payment(id)))));
+        journal.snapshot(writer -> writer.accept(payment(500)));
+        journal.append(List.of(new JournalRecord.Deleted(500)));
+        journal.close();
+
+        List<JournalRecord> replayed = new ArrayList<>();
+        open(replayed).close();
+
+        assertThat(segments()).hasSize(1);
+        assertThat(replayed).hasSize(2);
+        assertThat(replayed.getFirst()).isInstanceOfSatisfying(JournalRecord.Row.class,
+                row -> assertThat(row.payment().getId()).isEqualTo(500L));
+        assertThat(replayed.getLast()).isEqualTo(new JournalRecord.Deleted(500));
+    }
+
+    @Test
+    @DisplayName("Should make concurrent appends durable through shared forces")
+    void shouldGroupConcurrentCommits() {
+        var journal = open(new ArrayList<>());
+        try (ExecutorService writers = Executors.newFixedThreadPool(8)) {
+            IntStream.range(0, 8).forEach(writer -> writers.submit(() -> LongStream.rangeClosed(1, 100)
+                    .forEach(id -> journal.awaitDurable(journal.append(List.of(new JournalRecord.Deleted(id)))))));
+        }
+        journal.close();
+
+        List<JournalRecord> replayed = new ArrayList<>();
+        open(replayed).close();
+        assertThat(replayed).hasSize(800);
+    }
+
+    @Test
+    @DisplayName("Should keep forcing appends when segments roll while the flusher is forcing")
+    void shouldSurviveRollsDuringForce() {
+        // a 256 byte segment rolls every dozen records, racing the flusher again and again
+        var journal = open(new ArrayList<>(), DataSize.ofBytes(256));
+        try (ExecutorService writers = Executors.newFixedThreadPool(8)) {
+            IntStream.range(0, 8).forEach(writer -> writers.submit(() -> LongStream.rangeClosed(1, 500)
+                    .forEach(id -> journal.awaitDurable(journal.append(List.of(new JournalRecord.Deleted(id)))))));
+        }
+        // a failed force would be rethrown here, and by every append after it
+        journal.awaitDurable(journal.append(List.of(new JournalRecord.Deleted(0))));
+        journal.close();
+
+        List<JournalRecord> replayed = new ArrayList<>();
+        open(replayed, DataSize.ofBytes(256)).close();
+        assertThat(replayed).hasSize(4001);
+        assertThat(segments()).hasSizeGreaterThan(100);
+    }
+
+    private PaymentJournal open(List<JournalRecord> replayed) {
+        return open(replayed, DataSize.ofKilobytes(4));
+    }
+
+    private PaymentJournal open(List<JournalRecord> replayed, DataSize segmentSize) {
+        var journal = new PaymentJournal(true, directory, segmentSize, true);
+        journal.open(replayed::add);
+        return journal;
+    }
+
+    private List<Path> segments() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".log")).sorted().toList();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Payment payment(long id) {
+        return Payment.builder()
+                .id(id)
+                .payerId(PAYER)
+                .paymentSource(PaymentSource.PIX)
+                .amount(new BigDecimal("10.25"))
+                .status(PaymentStatus.PENDING)
+                .createdAt(LocalDateTime.of(2025, 1, 1, 12, 0).plusNanos(id * 1_000))
+                .version(0L)
+                .build();
+    }
+}
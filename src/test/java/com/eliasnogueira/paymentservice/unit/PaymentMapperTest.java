@@ -0,0 +1,38 @@
+package com.eliasnogueira.paymentservice.unit;
+
+import com.eliasnogueira.paymentservice.mapper.PaymentMapper;
+import com.eliasnogueira.paymentservice.model.Payment;
+import com.eliasnogueira.paymentservice.model.enums.PaymentSource;
+import com.eliasnogueira.paymentservice.model.enums.PaymentStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PaymentMapperTest {
+
+    private final PaymentMapper paymentMapper = new PaymentMapper();
+
+    @Test
+    @DisplayName("Should copy every field of the payment into the response")
+    void shouldMapPaymentToResponse() {
+        var payment = Payment.builder()
+                .id(10L)
+                .payerId(UUID.randomUUID())
+                .paymentSource(PaymentSource.DEBIT_CARD)
+                .amount(new BigDecimal("250.00"))
+                .status(PaymentStatus.PAID)
+                .build();
+
+        var response = paymentMapper.toResponse(payment);
+
+        assertThat(response.getId()).isEqualTo(10L);
+        assertThat(response.getPayerId()).isEqualTo(payment.getPayerId());
+        assertThat(response.getPaymentSource()).isEqualTo(PaymentSource.DEBIT_CARD);
+        assertThat(response.getAmount()).isEqualByComparingTo("250.00");
+        assertThat(response.getStatus()).isEqualTo(PaymentStatus.PAID);
+    }
+}
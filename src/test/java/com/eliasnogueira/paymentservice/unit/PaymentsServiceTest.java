@@ -1,26 +1,43 @@
 package com.eliasnogueira.paymentservice.unit;
 
 import com.eliasnogueira.paymentservice.dto.PaymentRequest;
+import com.eliasnogueira.paymentservice.dto.PaymentResponse;
 import com.eliasnogueira.paymentservice.exceptions.PaymentLimitException;
+import com.eliasnogueira.paymentservice.mapper.PaymentMapper;
 import com.eliasnogueira.paymentservice.model.Payment;
 import com.eliasnogueira.paymentservice.model.enums.PaymentSource;
+import com.eliasnogueira.paymentservice.model.enums.PaymentStatus;
+import com.eliasnogueira.paymentservice.repository.PaymentArchive;
+import com.eliasnogueira.paymentservice.repository.PaymentJournal;
 import com.eliasnogueira.paymentservice.repository.PaymentRepository;
+import com.eliasnogueira.paymentservice.service.DailyTotalLedger;
+import com.eliasnogueira.paymentservice.service.PayerSummaryStore;
+import com.eliasnogueira.paymentservice.service.PaymentCache;
+import com.eliasnogueira.paymentservice.service.PaymentMetrics;
+import com.eliasnogueira.paymentservice.service.PaymentOutbox;
 import com.eliasnogueira.paymentservice.service.PaymentService;
+import com.eliasnogueira.paymentservice.service.PaymentShards;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -30,9 +47,53 @@ public class PaymentsServiceTest {
     @Mock
     private PaymentRepository paymentRepository;
 
-    @InjectMocks
+    @Mock
+    private PaymentShards paymentShards;
+
+    @Mock
+    private PayerSummaryStore payerSummaryStore;
+
+    @Mock
+    private PaymentArchive paymentArchive;
+
+    @Mock
+    private PaymentJournal paymentJournal;
+
+    @Mock
+    private PaymentOutbox paymentOutbox;
+
     private PaymentService paymentService;
 
+    private PaymentCache paymentCache;
+
+    @BeforeEach
+    void setUp() {
+        // a single database, so whatever runs on a shard runs right here
+        when(paymentShards.onShard(anyInt(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+        paymentCache = new PaymentCache(100, Duration.ofMinutes(1));
+        paymentService = new PaymentService(paymentRepository,
+                new DailyTotalLedger(paymentRepository, paymentShards, DailyTotalLedger.Mode.DATABASE, 16),
+                new PaymentMapper(), paymentCache, new PaymentMetrics(new SimpleMeterRegistry()), payerSummaryStore,
+                paymentShards, paymentArchive, paymentJournal, paymentOutbox);
+    }
+
+    @Test
+    @DisplayName("Should read a payment from the database only once while it is cached")
+    void shouldServeRepeatedReadsFromCache() {
+        var payment = new PaymentResponse(7L, UUID.randomUUID(), PaymentSource.PIX, BigDecimal.TEN,
+                PaymentStatus.PENDING, 0L);
+        when(paymentRepository.findResponseById(7L)).thenReturn(Optional.of(payment));
+
+        paymentService.getPaymentById(7L);
+        var cached = paymentService.getPaymentById(7L);
+
+        assertThat(cached.getId()).isEqualTo(7L);
+        verify(paymentRepository, times(1)).findResponseById(7L);
+        assertThat(paymentCache.stats().hitCount()).isEqualTo(1);
+        assertThat(paymentCache.stats().missCount()).isEqualTo(1);
+    }
+
     @Test
     @DisplayName("Should save the payment when daily limit is not reached")
     public void testCreatePaymentSuccess() {
@@ -40,7 +101,11 @@ public class PaymentsServiceTest {
                 .thenReturn(new BigDecimal("200.00"));
 
         when(paymentRepository.save(any()))
-                .thenAnswer(invocation -> invocation.getArgument(0));
+                .thenAnswer(invocation -> {
+                    Payment payment = invocation.getArgument(0);
+                    payment.setId(1L);
+                    return payment;
+                });
 
         var paymentRequest = PaymentRequest.builder()
                 .payerId(UUID.randomUUID())
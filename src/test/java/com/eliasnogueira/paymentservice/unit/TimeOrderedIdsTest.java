@@ -0,0 +1,101 @@
+package com.eliasnogueira.paymentservice.unit;
+
+import com.eliasnogueira.paymentservice.model.id.TimeOrderedIds;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TimeOrderedIdsTest {
+
+    private static final long NOW = TimeOrderedIds.EPOCH_MILLIS + 1_000_000L;
+
+    @Test
+    @DisplayName("Should encode the timestamp and the node id")
+    void shouldEncodeTimestampAndNode() {
+        var ids = new TimeOrderedIds(42, () -> NOW);
+
+        long id = ids.nextId();
+
+        assertThat(TimeOrderedIds.timestampMillis(id)).isEqualTo(NOW);
+        assertThat(TimeOrderedIds.nodeId(id)).isEqualTo(42);
+    }
+
+    @Test
+    @DisplayName("Should keep increasing when the sequence of a millisecond is used up")
+    void shouldBorrowNextMillisecondWhenSequenceOverflows() {
+        var ids = new TimeOrderedIds(1, () -> NOW);
+
+        long previous = ids.nextId();
+        for (int i = 0; i < 10_000; i++) {
+            long next = ids.nextId();
+            assertThat(next).isGreaterThan(previous);
+            previous = next;
+        }
+        assertThat(TimeOrderedIds.timestampMillis(previous)).isEqualTo(NOW + 2);
+    }
+
+    @Test
+    @DisplayName("Should keep increasing when the clock moves backwards")
+    void shouldStayMonotonicWhenClockGoesBack() {
+        var clock = new AtomicLong(NOW);
+        var ids = new TimeOrderedIds(1, clock::get);
+
+        long beforeSkew = ids.nextId();
+        clock.set(NOW - 5_000);
+
+        assertThat(ids.nextId()).isGreaterThan(beforeSkew);
+    }
+
+    @Test
+    @DisplayName("Should hand out unique increasing ids to concurrent threads")
+    void shouldGenerateUniqueIdsConcurrently() throws Exception {
+        var ids = new TimeOrderedIds(3);
+        int threads = 16;
+        int idsPerThread = 50_000;
+        var generated = new ConcurrentLinkedQueue<Long>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    long previous = Long.MIN_VALUE;
+                    for (int i = 0; i < idsPerThread; i++) {
+                        long id = ids.nextId();
+                        assertThat(id).isGreaterThan(previous);
+                        previous = id;
+                        generated.add(id);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Set<Long> unique = new HashSet<>(generated);
+        assertThat(unique).hasSize(threads * idsPerThread);
+    }
+
+    @Test
+    @DisplayName("Should reject a node id that does not fit in 10 bits")
+    void shouldRejectInvalidNodeId() {
+        assertThatThrownBy(() -> new TimeOrderedIds(1024))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Node id must be between 0 and 1023: 1024");
+    }
+}
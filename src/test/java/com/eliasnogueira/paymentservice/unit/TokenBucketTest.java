@@ -0,0 +1,64 @@
+package com.eliasnogueira.paymentservice.unit;
+
+import com.eliasnogueira.paymentservice.service.TokenBucket;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TokenBucketTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    @DisplayName("Should admit the burst at once and then refill at the rate")
+    void shouldRefillAtRate() {
+        var bucket = new TokenBucket(10, 3);
+        long now = 42 * SECOND;
+
+        assertThat(IntStream.range(0, 3).mapToLong(i -> bucket.tryAcquire(1, now))).containsOnly(0L);
+        assertThat(bucket.tryAcquire(1, now)).isEqualTo(SECOND / 10);
+
+        // a rejection takes nothing, so the token is there once the wait is over
+        assertThat(bucket.tryAcquire(1, now + SECOND / 10)).isZero();
+        assertThat(bucket.tryAcquire(1, now + SECOND / 10)).isPositive();
+
+        // refilling stops at the burst
+        assertThat(bucket.tryAcquire(3, now + 60 * SECOND)).isZero();
+        assertThat(bucket.tryAcquire(1, now + 60 * SECOND)).isPositive();
+    }
+
+    @Test
+    @DisplayName("Should hold released permits again at once")
+    void shouldReleasePermits() {
+        var bucket = new TokenBucket(10, 3);
+        long now = 42 * SECOND;
+
+        assertThat(bucket.tryAcquire(3, now)).isZero();
+        bucket.release(2);
+
+        assertThat(bucket.tryAcquire(2, now)).isZero();
+        assertThat(bucket.tryAcquire(1, now)).isPositive();
+    }
+
+    @Test
+    @DisplayName("Should never hand out more than the burst to concurrent callers")
+    void shouldNotOverAdmitConcurrently() {
+        var bucket = new TokenBucket(1, 100);
+        long now = System.nanoTime();
+        var admitted = new AtomicInteger();
+
+        try (ExecutorService callers = Executors.newFixedThreadPool(8)) {
+            IntStream.range(0, 8).forEach(caller -> callers.submit(() -> IntStream.range(0, 1000)
+                    .filter(i -> bucket.tryAcquire(1, now) == 0)
+                    .forEach(i -> admitted.incrementAndGet())));
+        }
+
+        assertThat(admitted).hasValue(100);
+    }
+}